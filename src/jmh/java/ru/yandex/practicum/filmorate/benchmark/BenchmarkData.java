@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryStorageCRUD;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Seeded synthetic catalog, so every run and every fork benchmarks the same data.
+ * Popularity is skewed: a few films and users collect most of the likes and friends.
+ */
+public final class BenchmarkData {
+    public static final long SEED = 42L;
+
+    private static final LocalDate FIRST_RELEASE = LocalDate.of(1895, 12, 28);
+    private static final int RELEASE_DAYS = 47_000;
+    private static final AtomicLong USER_NUMBERS = new AtomicLong();
+
+    private BenchmarkData() {
+    }
+
+    public static Film film(Random random) {
+        int number = random.nextInt(Integer.MAX_VALUE);
+        return Film.builder()
+                .name("Film " + number)
+                .description("Synthetic film " + number)
+                .releaseDate(FIRST_RELEASE.plusDays(random.nextInt(RELEASE_DAYS)))
+                .duration(Duration.ofMinutes(60 + random.nextInt(120)))
+                .build();
+    }
+
+    /**
+     * Logins and emails are unique in the storages, so they are numbered rather than drawn.
+     */
+    public static User user(Random random) {
+        long number = USER_NUMBERS.incrementAndGet();
+        return User.builder()
+                .login("user" + number)
+                .email("user" + number + "@filmorate.ru")
+                .name("User " + number)
+                .birthday(LocalDate.of(1950, 1, 1).plusDays(random.nextInt(20_000)))
+                .build();
+    }
+
+    public static long[] createFilms(FilmStorage filmStorage, int count, Random random) {
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = filmStorage.createEntityInStorage(film(random)).getId();
+        }
+        return ids;
+    }
+
+    public static long[] createUsers(InMemoryStorageCRUD<User> userStorage, int count, Random random) {
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = userStorage.createEntityInStorage(user(random)).getId();
+        }
+        return ids;
+    }
+
+    public static void connectFriends(UserService userService, long[] userIds, int averageDegree, Random random) {
+        long edges = (long) userIds.length * averageDegree / 2;
+        for (long i = 0; i < edges; i++) {
+            long userId = userIds[random.nextInt(userIds.length)];
+            long friendId = userIds[skewedIndex(userIds.length, random)];
+            if (userId != friendId) {
+                userService.addFriend(userId, friendId);
+            }
+        }
+    }
+
+    public static void likeFilms(FilmService filmService, long[] filmIds, long[] userIds, int averageLikes,
+                                 Random random) {
+        long likes = (long) filmIds.length * averageLikes;
+        for (long i = 0; i < likes; i++) {
+            filmService.addLikeToFilm(filmIds[skewedIndex(filmIds.length, random)],
+                    userIds[random.nextInt(userIds.length)]);
+        }
+    }
+
+    public static long pick(long[] ids, Random random) {
+        return ids[random.nextInt(ids.length)];
+    }
+
+    private static int skewedIndex(int bound, Random random) {
+        double skewed = Math.pow(random.nextDouble(), 3);
+        return (int) (skewed * bound);
+    }
+}
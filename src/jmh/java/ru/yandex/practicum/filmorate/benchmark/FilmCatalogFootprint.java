@@ -0,0 +1,117 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.OffHeapFilmStorage;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Loads the same synthetic catalog into {@link InMemoryFilmStorage} and {@link OffHeapFilmStorage} and reports
+ * per storage: retained heap and direct memory, the duration of a full collection over the loaded catalog,
+ * and the collections caused by a read and update workload.
+ *
+ * <pre>
+ * mvn -Pjmh verify -DskipTests -Djmh.main=ru.yandex.practicum.filmorate.benchmark.FilmCatalogFootprint \
+ *     -Djmh.jvmArgs=-Xmx16g -Djmh.args="--films 10000000 --seconds 30"
+ * </pre>
+ */
+public final class FilmCatalogFootprint {
+    private static final int BATCH_SIZE = 10_000;
+
+    private FilmCatalogFootprint() {
+    }
+
+    public static void main(String[] args) {
+        int films = intArgument(args, "--films", 1_000_000);
+        int seconds = intArgument(args, "--seconds", 10);
+
+        List<String> results = new ArrayList<>();
+        results.add(String.format("%-8s %12s %12s %12s %14s %14s", "storage", "heap MB", "direct MB",
+                "full gc ms", "workload gcs", "workload gc ms"));
+        results.add(measure("heap", InMemoryFilmStorage::new, films, seconds));
+        results.add(measure("offheap", OffHeapFilmStorage::new, films, seconds));
+        results.forEach(System.out::println);
+    }
+
+    private static String measure(String name, Supplier<FilmStorage> factory, int films, int seconds) {
+        long heapBefore = usedHeapAfterGc();
+        long directBefore = directMemory();
+        FilmStorage storage = factory.get();
+        Random random = new Random(BenchmarkData.SEED);
+        for (int created = 0; created < films; created += BATCH_SIZE) {
+            List<Film> batch = new ArrayList<>(BATCH_SIZE);
+            for (int i = created; i < Math.min(films, created + BATCH_SIZE); i++) {
+                batch.add(BenchmarkData.film(random));
+            }
+            storage.createEntitiesInStorage(batch);
+        }
+
+        long fullGcStart = System.nanoTime();
+        long heap = usedHeapAfterGc() - heapBefore;
+        long fullGcNanos = System.nanoTime() - fullGcStart;
+        long direct = directMemory() - directBefore;
+
+        long[] gcBefore = gcTotals();
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        long checksum = 0;
+        while (System.nanoTime() < deadline) {
+            for (int i = 0; i < 1_000; i++) {
+                long id = 1 + random.nextInt(films);
+                Film film = storage.readEntityFromStorage(id);
+                checksum += film.getName().length();
+                if (i % 10 == 0) {
+                    Film update = BenchmarkData.film(random);
+                    update.setId(id);
+                    storage.updateEntityInStorage(update);
+                }
+            }
+        }
+        long[] gcAfter = gcTotals();
+        storage.countEntitiesInStorage();
+        return String.format("%-8s %12.1f %12.1f %12d %14d %14d%s", name, heap / 1e6, direct / 1e6,
+                fullGcNanos / 1_000_000, gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1],
+                checksum == 0 ? " (empty)" : "");
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long directMemory() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> pool.getName().equals("direct"))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+    }
+
+    private static long[] gcTotals() {
+        long count = 0;
+        long time = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+            time += Math.max(0, collector.getCollectionTime());
+        }
+        return new long[]{count, time};
+    }
+
+    private static int intArgument(String[] args, String name, int defaultValue) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(name)) {
+                return Integer.parseInt(args[i + 1]);
+            }
+        }
+        return defaultValue;
+    }
+}
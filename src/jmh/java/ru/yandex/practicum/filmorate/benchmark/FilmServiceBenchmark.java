@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
+import ru.yandex.practicum.filmorate.service.TrendingProperties;
+import ru.yandex.practicum.filmorate.service.TrendingService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class FilmServiceBenchmark {
+    private static final int AVERAGE_LIKES = 10;
+
+    @Param({"10000", "1000000"})
+    private int size;
+
+    @Param({"10", "100"})
+    private int count;
+
+    private FilmService filmService;
+    private long[] filmIds;
+    private long[] userIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(BenchmarkData.SEED);
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        UserService userService = new UserService(userStorage);
+        filmService = new FilmService(filmStorage, userService,
+                new TrendingService(filmStorage, new TrendingProperties()),
+                new RecommendationService(filmStorage, userService));
+        filmIds = BenchmarkData.createFilms(filmStorage, size, random);
+        userIds = BenchmarkData.createUsers(userStorage, size, random);
+        BenchmarkData.likeFilms(filmService, filmIds, userIds, AVERAGE_LIKES, random);
+    }
+
+    @Benchmark
+    public List<Film> getTopRatedFilms() {
+        return filmService.getTopRatedFilms(count);
+    }
+
+    @Benchmark
+    public void addAndRemoveLike() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long filmId = BenchmarkData.pick(filmIds, random);
+        long userId = BenchmarkData.pick(userIds, random);
+        filmService.addLikeToFilm(filmId, userId);
+        filmService.removeLikeFromFilm(filmId, userId);
+    }
+
+    @Benchmark
+    public void addLikeToFilm() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        filmService.addLikeToFilm(BenchmarkData.pick(filmIds, random), BenchmarkData.pick(userIds, random));
+    }
+}
@@ -0,0 +1,116 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.utility.LongHashSet;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Common friends of two users by probing the larger {@link LongHashSet} from the smaller one, against
+ * merge and galloping intersection of friend ids kept as sorted arrays. The sorted arrays are built in
+ * the setup, so the sorted variants are measured at their best: friend lists already stored sorted.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2)
+@State(Scope.Benchmark)
+public class FriendIntersectionBenchmark {
+    @Param({"20", "1000"})
+    private int smaller;
+
+    @Param({"20", "1000", "100000"})
+    private int larger;
+
+    private LongHashSet smallerSet;
+    private LongHashSet largerSet;
+    private long[] smallerSorted;
+    private long[] largerSorted;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(BenchmarkData.SEED);
+        long universe = 4L * Math.max(smaller, larger);
+        smallerSet = new LongHashSet();
+        largerSet = new LongHashSet();
+        while (smallerSet.size() < smaller) {
+            smallerSet.add(1 + (long) (random.nextDouble() * universe));
+        }
+        while (largerSet.size() < larger) {
+            largerSet.add(1 + (long) (random.nextDouble() * universe));
+        }
+        smallerSorted = smallerSet.toLongArray();
+        largerSorted = largerSet.toLongArray();
+        Arrays.sort(smallerSorted);
+        Arrays.sort(largerSorted);
+    }
+
+    @Benchmark
+    public List<Long> hashProbe() {
+        return LongHashSet.intersect(smallerSet, largerSet);
+    }
+
+    @Benchmark
+    public long[] sortedMerge() {
+        long[] result = new long[smallerSorted.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < smallerSorted.length && j < largerSorted.length) {
+            long a = smallerSorted[i];
+            long b = largerSorted[j];
+            if (a == b) {
+                result[count++] = a;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    @Benchmark
+    public long[] sortedGallop() {
+        long[] result = new long[smallerSorted.length];
+        int count = 0;
+        int from = 0;
+        for (long value : smallerSorted) {
+            int step = 1;
+            int to = from;
+            while (to < largerSorted.length && largerSorted[to] < value) {
+                from = to + 1;
+                to += step;
+                step <<= 1;
+            }
+            int found = Arrays.binarySearch(largerSorted, from, Math.min(to + 1, largerSorted.length), value);
+            if (found >= 0) {
+                result[count++] = value;
+                from = found + 1;
+            } else {
+                from = -found - 1;
+            }
+            if (from >= largerSorted.length) {
+                break;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
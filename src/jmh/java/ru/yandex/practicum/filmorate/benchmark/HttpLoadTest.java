@@ -0,0 +1,144 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop HTTP load test that starts the application twice, once on the Tomcat platform-thread pool
+ * and once on virtual threads, and drives each with the same number of concurrent keep-alive connections.
+ * Every connection is a virtual thread issuing requests back to back until the run ends.
+ *
+ * <pre>
+ * mvn -Pjmh verify -DskipTests -Djmh.main=ru.yandex.practicum.filmorate.benchmark.HttpLoadTest \
+ *     -Djmh.args="--connections 10000 --seconds 30 --profiles jdbc"
+ * </pre>
+ *
+ * The open file limit has to allow two sockets per connection, e.g. {@code ulimit -n 65536}.
+ */
+public final class HttpLoadTest {
+    private static final int FILMS = 10_000;
+    private static final int USERS = 10_000;
+
+    private HttpLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int connections = intArgument(args, "--connections", 10_000);
+        int seconds = intArgument(args, "--seconds", 30);
+        String profiles = argument(args, "--profiles", "");
+
+        List<String> results = new ArrayList<>();
+        for (boolean virtual : new boolean[]{false, true}) {
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FilmorateApplication.class)
+                    .profiles(profiles.isBlank() ? new String[0] : profiles.split(","))
+                    .properties(
+                            "server.port=0",
+                            "spring.threads.virtual.enabled=" + virtual,
+                            "server.tomcat.max-connections=" + (connections + 1_000),
+                            "server.tomcat.accept-count=" + connections,
+                            "logging.level.root=WARN",
+                            "logging.level.org.zalando.logbook=WARN")
+                    .run()) {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                long[][] ids = seed(context);
+                results.add(String.format("%-9s %s", virtual ? "virtual" : "platform",
+                        run(port, ids[0], ids[1], connections, seconds)));
+            }
+        }
+        results.forEach(System.out::println);
+    }
+
+    private static long[][] seed(ConfigurableApplicationContext context) {
+        Random random = new Random(BenchmarkData.SEED);
+        long[] filmIds = BenchmarkData.createFilms(context.getBean(FilmStorage.class), FILMS, random);
+        long[] userIds = BenchmarkData.createUsers(context.getBean(UserStorage.class), USERS, random);
+        BenchmarkData.likeFilms(context.getBean(FilmService.class), filmIds, userIds, 10, random);
+        BenchmarkData.connectFriends(context.getBean(UserService.class), userIds, 10, random);
+        return new long[][]{filmIds, userIds};
+    }
+
+    private static String run(int port, long[] filmIds, long[] userIds, int connections, int seconds) {
+        String base = "http://localhost:" + port;
+        LongAdder completed = new LongAdder();
+        LongAdder failed = new LongAdder();
+        LongAdder latencyNanos = new LongAdder();
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+
+        try (HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < connections; i++) {
+                clients.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(base + path(random, filmIds, userIds)))
+                                .timeout(Duration.ofSeconds(60))
+                                .build();
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() == 200) {
+                                completed.increment();
+                                latencyNanos.add(System.nanoTime() - start);
+                            } else {
+                                failed.increment();
+                            }
+                        } catch (Exception ex) {
+                            failed.increment();
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+
+        long requests = completed.sum();
+        return String.format("%,12.0f req/s  mean %8.2f ms  errors %,d", requests / (double) seconds,
+                requests == 0 ? 0 : latencyNanos.sum() / (double) requests / 1_000_000, failed.sum());
+    }
+
+    private static String path(ThreadLocalRandom random, long[] filmIds, long[] userIds) {
+        int kind = random.nextInt(10);
+        if (kind < 8) {
+            return "/films/" + filmIds[random.nextInt(filmIds.length)];
+        }
+        if (kind == 8) {
+            return "/films/popular?count=10";
+        }
+        return "/users/" + userIds[random.nextInt(userIds.length)] + "/friends";
+    }
+
+    private static int intArgument(String[] args, String name, int defaultValue) {
+        return Integer.parseInt(argument(args, name, String.valueOf(defaultValue)));
+    }
+
+    private static String argument(String[] args, String name, String defaultValue) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(name)) {
+                return args[i + 1];
+            }
+        }
+        return defaultValue;
+    }
+}
@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jol.info.GraphLayout;
+import ru.yandex.practicum.filmorate.utility.LongHashSet;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Reports the retained size of a like set, walked with JOL's {@link GraphLayout}, for {@link HashSet} of boxed
+ * ids and for {@link LongHashSet}. Ids are drawn above the {@code Long} cache, as real user ids are.
+ *
+ * <pre>
+ * mvn -Pjmh verify -DskipTests -Djmh.main=ru.yandex.practicum.filmorate.benchmark.LongSetFootprint \
+ *     -Djmh.jvmArgs="-Djdk.attach.allowAttachSelf -XX:+EnableDynamicAgentLoading" -Djmh.args="1 10 1000 100000"
+ * </pre>
+ */
+public final class LongSetFootprint {
+    private LongSetFootprint() {
+    }
+
+    public static void main(String[] args) {
+        List<Integer> sizes = new ArrayList<>();
+        for (String arg : args) {
+            sizes.add(Integer.parseInt(arg));
+        }
+        if (sizes.isEmpty()) {
+            sizes = List.of(1, 10, 1_000, 100_000);
+        }
+        System.out.printf("%10s %16s %16s %16s %16s%n", "likes", "HashSet bytes", "per like",
+                "LongHashSet bytes", "per like");
+        for (int likes : sizes) {
+            long boxed = retained(HashSet::new, likes);
+            long primitive = retained(LongHashSet::new, likes);
+            System.out.printf("%10d %16d %16.1f %16d %16.1f%n", likes, boxed, (double) boxed / likes,
+                    primitive, (double) primitive / likes);
+        }
+    }
+
+    private static long retained(Supplier<Set<Long>> factory, int likes) {
+        Random random = new Random(BenchmarkData.SEED);
+        Set<Long> set = factory.get();
+        while (set.size() < likes) {
+            set.add(1_000L + random.nextInt(Integer.MAX_VALUE - 1_000));
+        }
+        return GraphLayout.parseInstance(set).totalSize();
+    }
+}
@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
+import ru.yandex.practicum.filmorate.service.TrendingProperties;
+import ru.yandex.practicum.filmorate.service.TrendingService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recommendations for random users, with about {@value #LIKES_PER_USER} likes per user spread over one film
+ * per {@value #USERS_PER_FILM} users. {@code warmNeighbours} hits users whose neighbours are cached,
+ * {@code coldNeighbours} first likes a film for the user so the neighbours are searched again.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class RecommendationBenchmark {
+    private static final int LIKES_PER_USER = 10;
+    private static final int USERS_PER_FILM = 10;
+    private static final int WARM_USERS = 1_000;
+
+    @Param({"10000", "1000000"})
+    private int users;
+
+    private FilmService filmService;
+    private RecommendationService recommendationService;
+    private long[] filmIds;
+    private long[] userIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(BenchmarkData.SEED);
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        UserService userService = new UserService(userStorage);
+        recommendationService = new RecommendationService(filmStorage, userService);
+        filmService = new FilmService(filmStorage, userService,
+                new TrendingService(filmStorage, new TrendingProperties()), recommendationService);
+        filmIds = BenchmarkData.createFilms(filmStorage, users / USERS_PER_FILM, random);
+        userIds = BenchmarkData.createUsers(userStorage, users, random);
+        BenchmarkData.likeFilms(filmService, filmIds, userIds, LIKES_PER_USER * USERS_PER_FILM, random);
+        for (int i = 0; i < WARM_USERS; i++) {
+            recommendationService.getRecommendations(userIds[i], 10);
+        }
+    }
+
+    @Benchmark
+    public List<Film> warmNeighbours() {
+        return recommendationService.getRecommendations(userIds[ThreadLocalRandom.current().nextInt(WARM_USERS)], 10);
+    }
+
+    @Benchmark
+    public List<Film> coldNeighbours() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long userId = BenchmarkData.pick(userIds, random);
+        filmService.addLikeToFilm(BenchmarkData.pick(filmIds, random), userId);
+        return recommendationService.getRecommendations(userId, 10);
+    }
+}
@@ -0,0 +1,98 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class StorageBenchmark {
+    @Param({"10000", "1000000"})
+    private int size;
+
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+    private long[] filmIds;
+    private long[] userIds;
+    private Film filmTemplate;
+    private User userTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(BenchmarkData.SEED);
+        filmStorage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+        filmIds = BenchmarkData.createFilms(filmStorage, size, random);
+        userIds = BenchmarkData.createUsers(userStorage, size, random);
+        filmTemplate = BenchmarkData.film(random);
+        userTemplate = BenchmarkData.user(random);
+    }
+
+    @Benchmark
+    public Film readFilm() {
+        return filmStorage.readEntityFromStorage(BenchmarkData.pick(filmIds, ThreadLocalRandom.current()));
+    }
+
+    @Benchmark
+    public Film updateFilm() {
+        Film film = filmStorage.readEntityFromStorage(BenchmarkData.pick(filmIds, ThreadLocalRandom.current()));
+        return filmStorage.updateEntityInStorage(film);
+    }
+
+    @Benchmark
+    public Film createAndDeleteFilm() {
+        Film film = filmStorage.createEntityInStorage(filmTemplate);
+        filmStorage.deleteEntityFromStorage(film.getId());
+        return film;
+    }
+
+    @Benchmark
+    public List<Film> readFilmsPage() {
+        return filmStorage.readEntitiesPageFromStorage(BenchmarkData.pick(filmIds, ThreadLocalRandom.current()), 100);
+    }
+
+    @Benchmark
+    public User readUser() {
+        return userStorage.readEntityFromStorage(BenchmarkData.pick(userIds, ThreadLocalRandom.current()));
+    }
+
+    @Benchmark
+    public User updateUser() {
+        User user = userStorage.readEntityFromStorage(BenchmarkData.pick(userIds, ThreadLocalRandom.current()));
+        return userStorage.updateEntityInStorage(user);
+    }
+
+    @Benchmark
+    public User createAndDeleteUser() {
+        User user = userStorage.createEntityInStorage(userTemplate);
+        userStorage.deleteEntityFromStorage(user.getId());
+        return user;
+    }
+
+    @Benchmark
+    public List<User> readUsersPage() {
+        return userStorage.readEntitiesPageFromStorage(BenchmarkData.pick(userIds, ThreadLocalRandom.current()), 100);
+    }
+}
@@ -0,0 +1,114 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Film updates through {@link InMemoryFilmStorage}, which logs every update at INFO, with the storage logger
+ * writing to a file directly or through the same {@link AsyncAppender} setup as {@code logback-spring.xml}.
+ * Each film carries {@code likes} likes, which matters while the logged entity renders its like set.
+ * Once the async queue is 80% full the appender discards INFO events, so async scores count discarded
+ * updates too and vary widely between forks; compare them only by their confidence intervals.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@Threads(4)
+@State(Scope.Benchmark)
+public class StorageLoggingBenchmark {
+    private static final int FILMS = 1_000;
+
+    @Param({"sync", "async"})
+    private String appender;
+
+    @Param({"0", "1000"})
+    private int likes;
+
+    private InMemoryFilmStorage filmStorage;
+    private Film[] updates;
+    private Appender<ILoggingEvent> fileAppender;
+
+    @Setup
+    public void setUp() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p --- [%t] %-40.40logger{39} : %m%n");
+        encoder.start();
+        FileAppender<ILoggingEvent> file = new FileAppender<>();
+        file.setContext(context);
+        file.setFile("target/storage-logging-benchmark.log");
+        file.setAppend(false);
+        file.setEncoder(encoder);
+        file.start();
+        fileAppender = file;
+        if (appender.equals("async")) {
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(context);
+            async.setQueueSize(8192);
+            async.addAppender(file);
+            async.start();
+            fileAppender = async;
+        }
+        Logger logger = context.getLogger(InMemoryFilmStorage.class);
+        logger.setLevel(Level.INFO);
+        logger.setAdditive(false);
+        logger.addAppender(fileAppender);
+
+        Random random = new Random(BenchmarkData.SEED);
+        filmStorage = new InMemoryFilmStorage();
+        long[] filmIds = BenchmarkData.createFilms(filmStorage, FILMS, random);
+        long[] likedFilms = new long[FILMS * likes];
+        long[] likingUsers = new long[FILMS * likes];
+        for (int i = 0; i < likedFilms.length; i++) {
+            likedFilms[i] = filmIds[i / Math.max(1, likes)];
+            likingUsers[i] = 1 + i % Math.max(1, likes);
+        }
+        filmStorage.addLikesInStorage(likedFilms, likingUsers);
+        updates = new Film[FILMS];
+        for (int i = 0; i < FILMS; i++) {
+            updates[i] = BenchmarkData.film(random);
+            updates[i].setId(filmIds[i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        Logger logger = ((LoggerContext) LoggerFactory.getILoggerFactory()).getLogger(InMemoryFilmStorage.class);
+        logger.detachAppender(fileAppender);
+        fileAppender.stop();
+    }
+
+    @Benchmark
+    public Film updateFilm() {
+        return filmStorage.updateEntityInStorage(updates[ThreadLocalRandom.current().nextInt(FILMS)]);
+    }
+}
@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.JdbcUserStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Friend reads one by one against one batched read, on the in-memory storage and on {@code jdbc} over an
+ * embedded H2, where every read is a round trip and the batch saves N - 1 of them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class UserServiceBenchmark {
+    private static final int AVERAGE_FRIENDS = 20;
+
+    @Param({"10000", "1000000"})
+    private int size;
+
+    @Param({"memory", "jdbc"})
+    private String storage;
+
+    private HikariDataSource dataSource;
+    private UserStorage userStorage;
+    private UserService userService;
+    private long[] userIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(BenchmarkData.SEED);
+        userStorage = storage.equals("jdbc") ? jdbcUserStorage() : new InMemoryUserStorage();
+        userService = new UserService(userStorage);
+        userIds = BenchmarkData.createUsers(userStorage, size, random);
+        BenchmarkData.connectFriends(userService, userIds, AVERAGE_FRIENDS, random);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    @Benchmark
+    public List<User> getUserFriends() {
+        return userService.getUserFriends(BenchmarkData.pick(userIds, ThreadLocalRandom.current()));
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return userService.getCommonFriends(BenchmarkData.pick(userIds, random), BenchmarkData.pick(userIds, random));
+    }
+
+    @Benchmark
+    public List<User> readFriendsOneByOne() {
+        User user = userStorage.readEntityFromStorage(BenchmarkData.pick(userIds, ThreadLocalRandom.current()));
+        List<User> friends = new ArrayList<>(user.getFriends().size());
+        for (Long friendId : user.getFriends()) {
+            friends.add(userStorage.readEntityFromStorage(friendId));
+        }
+        return friends;
+    }
+
+    @Benchmark
+    public List<User> readFriendsInBatch() {
+        User user = userStorage.readEntityFromStorage(BenchmarkData.pick(userIds, ThreadLocalRandom.current()));
+        return userStorage.readEntitiesFromStorage(user.getFriends());
+    }
+
+    private UserStorage jdbcUserStorage() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:user-benchmark-" + size + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        return new JdbcUserStorage(new NamedParameterJdbcTemplate(dataSource));
+    }
+}
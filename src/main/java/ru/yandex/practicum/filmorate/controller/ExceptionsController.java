@@ -10,6 +10,8 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import ru.yandex.practicum.filmorate.dto.ExceptionDto;
+import ru.yandex.practicum.filmorate.exception.BadRequestException;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 
 import java.time.LocalDateTime;
@@ -46,6 +48,19 @@ public class ExceptionsController {
         return new ResponseEntity<>(exDto, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(BadRequestException.class)
+    public @ResponseBody ResponseEntity<ExceptionDto> badRequest(HttpServletRequest req,
+                                                                 BadRequestException ex) {
+        ExceptionDto exDto = ExceptionDto.builder()
+                .url(req.getRequestURI())
+                .message(ex.getMessage())
+                .timestamp(LocalDateTime.now())
+                .statusCode(HttpStatus.BAD_REQUEST)
+                .build();
+        log.error(ex.getMessage());
+        return new ResponseEntity<>(exDto, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(NotFoundException.class)
     public @ResponseBody ResponseEntity<ExceptionDto> notFound(HttpServletRequest req,
                                                                NotFoundException ex) {
@@ -59,4 +74,17 @@ public class ExceptionsController {
         return new ResponseEntity<>(exDto, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(ConflictException.class)
+    public @ResponseBody ResponseEntity<ExceptionDto> conflict(HttpServletRequest req,
+                                                               ConflictException ex) {
+        ExceptionDto exDto = ExceptionDto.builder()
+                .url(req.getRequestURI())
+                .message(ex.getMessage())
+                .timestamp(LocalDateTime.now())
+                .statusCode(HttpStatus.CONFLICT)
+                .build();
+        log.error(ex.getMessage());
+        return new ResponseEntity<>(exDto, HttpStatus.CONFLICT);
+    }
+
 }
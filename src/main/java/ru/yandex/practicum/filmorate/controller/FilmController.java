@@ -1,15 +1,28 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.exception.BadRequestException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSearch;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.TrendingService;
+import ru.yandex.practicum.filmorate.utility.Durations;
 
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Locale;
 
 @RestController
 @AllArgsConstructor
@@ -17,6 +30,9 @@ import java.util.List;
 @RequestMapping("/films")
 public class FilmController {
     private final FilmService filmService;
+    private final NdjsonStreamer ndjsonStreamer;
+    private final PopularFilmsResponseCache popularFilmsResponseCache;
+    private final TrendingService trendingService;
 
     @PostMapping
     public Film createFilm(@Valid @RequestBody Film film) {
@@ -35,8 +51,18 @@ public class FilmController {
     }
 
     @GetMapping
-    public List<Film> getAllFilms() {
-        return filmService.getAllFilms();
+    public List<Film> getAllFilms(@PositiveOrZero @RequestParam(required = false) Long after,
+                                  @Positive @Max(1000) @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            return filmService.getAllFilms();
+        }
+        int pageSize = limit == null ? 100 : limit;
+        return filmService.getFilmsPage(after, pageSize);
+    }
+
+    @GetMapping(produces = NdjsonStreamer.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamAllFilms() {
+        return ndjsonStreamer.stream(filmService::getFilmsPage, Film::getId);
     }
 
     @GetMapping("/{id}")
@@ -45,9 +71,54 @@ public class FilmController {
     }
 
     @GetMapping("/popular")
-    public List<Film> getPopularFilms(@Positive @RequestParam(required = false) Integer count) {
+    public ResponseEntity<byte[]> getPopularFilms(@Positive @Max(1000) @RequestParam(required = false) Integer count) {
+        int filmCount = count == null ? 10 : count;
+        PopularFilmsResponseCache.Response response = popularFilmsResponseCache.get(filmCount);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(response.etag())
+                .body(response.body());
+    }
+
+    @GetMapping("/trending")
+    public List<Film> getTrendingFilms(@RequestParam(defaultValue = "24h") String window,
+                                       @Positive @Max(1000) @RequestParam(required = false) Integer count) {
         int filmCount = count == null ? 10 : count;
-        return filmService.getTopRatedFilms(filmCount);
+        return trendingService.getTrendingFilms(window, filmCount);
+    }
+
+    @GetMapping("/search")
+    public List<Film> searchFilms(@Size(min = 3) @RequestParam(required = false) String name,
+                                  @Size(min = 1) @RequestParam(required = false) String prefix,
+                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                                  @RequestParam(required = false) LocalDate releasedFrom,
+                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                                  @RequestParam(required = false) LocalDate releasedTo,
+                                  @RequestParam(required = false) String minDuration,
+                                  @RequestParam(required = false) String maxDuration,
+                                  @RequestParam(defaultValue = "likes") String sort,
+                                  @Positive @Max(1000) @RequestParam(required = false) Integer limit) {
+        FilmSearch.Sort order;
+        try {
+            order = FilmSearch.Sort.valueOf(sort.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("sort should be likes or date: " + sort);
+        }
+        return filmService.searchFilms(FilmSearch.builder()
+                .name(name)
+                .namePrefix(prefix)
+                .releasedFrom(releasedFrom)
+                .releasedTo(releasedTo)
+                .minDuration(minDuration == null ? null : Durations.parse("minDuration", minDuration))
+                .maxDuration(maxDuration == null ? null : Durations.parse("maxDuration", maxDuration))
+                .sort(order)
+                .limit(limit == null ? 100 : limit)
+                .build());
+    }
+
+    @DeleteMapping("/{id}")
+    public void deleteFilm(@Positive @PathVariable Long id) {
+        filmService.deleteFilm(id);
     }
 
     @DeleteMapping("/{id}/like/{userId}")
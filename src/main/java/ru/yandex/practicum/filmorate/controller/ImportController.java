@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.dto.ImportReportDto;
+import ru.yandex.practicum.filmorate.service.BulkImportService;
+import ru.yandex.practicum.filmorate.service.ImportFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@AllArgsConstructor
+@RequestMapping(value = "/import", consumes = {NdjsonStreamer.APPLICATION_NDJSON_VALUE, ImportController.TEXT_CSV_VALUE})
+public class ImportController {
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    private final BulkImportService bulkImportService;
+
+    @PostMapping("/films")
+    public ImportReportDto importFilms(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                       InputStream body) throws IOException {
+        return bulkImportService.importFilms(body, format(contentType));
+    }
+
+    @PostMapping("/users")
+    public ImportReportDto importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                       InputStream body) throws IOException {
+        return bulkImportService.importUsers(body, format(contentType));
+    }
+
+    @PostMapping("/likes")
+    public ImportReportDto importLikes(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                       InputStream body) throws IOException {
+        return bulkImportService.importLikes(body, format(contentType));
+    }
+
+    @PostMapping("/friendships")
+    public ImportReportDto importFriendships(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                             InputStream body) throws IOException {
+        return bulkImportService.importFriendships(body, format(contentType));
+    }
+
+    private static ImportFormat format(MediaType contentType) {
+        return contentType.isCompatibleWith(MediaType.parseMediaType(TEXT_CSV_VALUE)) ? ImportFormat.CSV
+                : ImportFormat.NDJSON;
+    }
+}
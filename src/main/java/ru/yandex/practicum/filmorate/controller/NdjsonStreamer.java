@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+@Component
+@AllArgsConstructor
+public class NdjsonStreamer {
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    private static final int PAGE_SIZE = 1000;
+
+    private final ObjectMapper objectMapper;
+
+    public <T> StreamingResponseBody stream(BiFunction<Long, Integer, List<T>> pageReader, Function<T, Long> idOf) {
+        return outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                Long afterId = null;
+                List<T> page = pageReader.apply(afterId, PAGE_SIZE);
+                while (!page.isEmpty()) {
+                    for (T entity : page) {
+                        generator.writeObject(entity);
+                        generator.writeRaw('\n');
+                    }
+                    generator.flush();
+                    afterId = idOf.apply(page.get(page.size() - 1));
+                    page = pageReader.apply(afterId, PAGE_SIZE);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.utility.CacheLoads;
+
+import java.io.UncheckedIOException;
+
+/**
+ * Serialized {@code /films/popular} responses keyed by count and {@link FilmService#getFilmsVersion()}.
+ * While no film or like changes the same bytes and ETag are served; concurrent requests for a new
+ * version share one computation, and entries of old versions age out of the bounded cache.
+ */
+@Component
+public class PopularFilmsResponseCache {
+    private static final int MAX_ENTRIES = 256;
+
+    private final FilmService filmService;
+    private final ObjectMapper objectMapper;
+    private final AsyncCache<Key, Response> responses;
+
+    public PopularFilmsResponseCache(FilmService filmService, ObjectMapper objectMapper) {
+        this.filmService = filmService;
+        this.objectMapper = objectMapper;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(MAX_ENTRIES)
+                .buildAsync();
+    }
+
+    public Response get(int count) {
+        return CacheLoads.get(responses, new Key(count, filmService.getFilmsVersion()), this::render);
+    }
+
+    private Response render(Key key) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(filmService.getTopRatedFilms(key.count()));
+            return new Response(body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    public record Response(byte[] body, String etag) {
+    }
+
+    private record Key(int count, long version) {
+    }
+}
@@ -1,11 +1,19 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.AllArgsConstructor;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.FriendSuggestionService;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
+import ru.yandex.practicum.filmorate.service.UserDeletionService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import java.util.List;
@@ -16,10 +24,25 @@ import java.util.List;
 @RequestMapping("/users")
 public class UserController {
     private final UserService userService;
+    private final FilmService filmService;
+    private final RecommendationService recommendationService;
+    private final FriendSuggestionService friendSuggestionService;
+    private final UserDeletionService userDeletionService;
+    private final NdjsonStreamer ndjsonStreamer;
 
     @GetMapping
-    public List<User> getAllUsers() {
-        return userService.getUsers();
+    public List<User> getAllUsers(@PositiveOrZero @RequestParam(required = false) Long after,
+                                  @Positive @Max(1000) @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            return userService.getUsers();
+        }
+        int pageSize = limit == null ? 100 : limit;
+        return userService.getUsersPage(after, pageSize);
+    }
+
+    @GetMapping(produces = NdjsonStreamer.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamAllUsers() {
+        return ndjsonStreamer.stream(userService::getUsersPage, User::getId);
     }
 
     @GetMapping("/{id}")
@@ -27,11 +50,38 @@ public class UserController {
         return userService.getUser(id);
     }
 
+    @GetMapping("/by-login/{login}")
+    public User getUserByLogin(@PathVariable String login) {
+        return userService.getUserByLogin(login);
+    }
+
+    @GetMapping("/by-email/{email}")
+    public User getUserByEmail(@PathVariable String email) {
+        return userService.getUserByEmail(email);
+    }
+
     @GetMapping("/{id}/friends")
     public List<User> getUserFriends(@Positive @PathVariable Long id) {
         return userService.getUserFriends(id);
     }
 
+    @GetMapping("/{id}/likes")
+    public List<Film> getLikedFilms(@Positive @PathVariable Long id) {
+        return filmService.getLikedFilms(id);
+    }
+
+    @GetMapping("/{id}/recommendations")
+    public List<Film> getRecommendations(@Positive @PathVariable Long id,
+                                         @Positive @Max(1000) @RequestParam(required = false) Integer count) {
+        return recommendationService.getRecommendations(id, count == null ? 10 : count);
+    }
+
+    @GetMapping("/{id}/friends/suggestions")
+    public List<User> getFriendSuggestions(@Positive @PathVariable Long id,
+                                           @Positive @Max(1000) @RequestParam(required = false) Integer limit) {
+        return friendSuggestionService.getFriendSuggestions(id, limit == null ? 10 : limit);
+    }
+
     @GetMapping("/{id}/friends/common/{otherId}")
     public List<User> getCommonFriends(@Positive @PathVariable Long otherId,
                                        @Positive @PathVariable Long id) {
@@ -48,6 +98,11 @@ public class UserController {
         return userService.updateUser(user);
     }
 
+    @DeleteMapping("/{id}")
+    public void deleteUser(@Positive @PathVariable Long id) {
+        userDeletionService.deleteUser(id);
+    }
+
     @PutMapping("/{id}/friends/{friendId}")
     public void addFriend(@Positive @PathVariable Long id,
                           @Positive @PathVariable Long friendId) {
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@Builder
+public class ImportReportDto {
+    private long accepted;
+    private long rejected;
+    private List<ImportErrorDto> errors;
+}
@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.zalando.logbook.Strategy;
+
+@Configuration
+@EnableConfigurationProperties(LoggingProperties.class)
+public class LoggingConfiguration {
+    @Bean
+    public Strategy sampledBodyStrategy(LoggingProperties properties) {
+        return new SampledBodyStrategy(properties.getBodySampleRate());
+    }
+}
@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.logging")
+public class LoggingProperties {
+    /**
+     * Share of HTTP exchanges whose request and response bodies Logbook writes, from 0 to 1.
+     */
+    private double bodySampleRate = 1.0;
+
+    /**
+     * Capacity of each async appender queue in {@code logback-spring.xml}.
+     */
+    private int asyncQueueSize = 8192;
+}
@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Strategy;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Logs every exchange but keeps only a sample of request and response bodies; the rest are neither
+ * buffered nor written. Logbook hands the response stage a different request object than the request
+ * stage, so the two bodies are sampled independently at the same rate.
+ */
+public class SampledBodyStrategy implements Strategy {
+    private final double sampleRate;
+
+    public SampledBodyStrategy(double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("Body sample rate should be between 0 and 1: " + sampleRate);
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public HttpRequest process(HttpRequest request) throws IOException {
+        return sampled() ? request.withBody() : request.withoutBody();
+    }
+
+    @Override
+    public HttpResponse process(HttpRequest request, HttpResponse response) throws IOException {
+        return sampled() ? response.withBody() : response.withoutBody();
+    }
+
+    private boolean sampled() {
+        return sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+}
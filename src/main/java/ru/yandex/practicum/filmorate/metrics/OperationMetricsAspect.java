@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every storage and service call. Meters are registered once per method and looked up by
+ * {@link Method}, so a call costs a map lookup and two nanoTime reads, with no tag allocation.
+ * Only service timers publish a percentile histogram: they are what a request waits on, while the
+ * storage calls beneath them are many and short enough that count, total and max tell the story.
+ */
+@Aspect
+@Component
+public class OperationMetricsAspect {
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, OperationMeters> meters;
+
+    public OperationMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.meters = new ConcurrentHashMap<>();
+    }
+
+    @Around("execution(public * ru.yandex.practicum.filmorate.storage.InMemoryStorageCRUD+.*(..))")
+    public Object timeStorageOperation(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, "filmorate.storage", false);
+    }
+
+    @Around("@within(org.springframework.stereotype.Service) && execution(public * *(..))")
+    public Object timeServiceOperation(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, "filmorate.service", true);
+    }
+
+    private Object time(ProceedingJoinPoint joinPoint, String layer, boolean histogram) throws Throwable {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        OperationMeters operationMeters = meters.get(signature.getMethod());
+        if (operationMeters == null) {
+            operationMeters = meters.computeIfAbsent(signature.getMethod(),
+                    method -> register(layer, signature.getDeclaringType().getSimpleName(), method.getName(),
+                            histogram));
+        }
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable ex) {
+            operationMeters.errors().increment();
+            throw ex;
+        } finally {
+            operationMeters.timer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private OperationMeters register(String layer, String component, String operation, boolean histogram) {
+        Timer timer = Timer.builder(layer)
+                .tag("component", component)
+                .tag("operation", operation)
+                .publishPercentileHistogram(histogram)
+                .register(meterRegistry);
+        Counter errors = Counter.builder(layer + ".errors")
+                .tag("component", component)
+                .tag("operation", operation)
+                .register(meterRegistry);
+        return new OperationMeters(timer, errors);
+    }
+
+    private record OperationMeters(Timer timer, Counter errors) {
+    }
+}
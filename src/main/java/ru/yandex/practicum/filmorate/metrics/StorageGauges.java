@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+@Component
+@AllArgsConstructor
+public class StorageGauges implements MeterBinder {
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("filmorate.films", filmStorage, FilmStorage::countEntitiesInStorage)
+                .description("Films in storage")
+                .register(registry);
+        Gauge.builder("filmorate.users", userStorage, UserStorage::countEntitiesInStorage)
+                .description("Users in storage")
+                .register(registry);
+        Gauge.builder("filmorate.likes", filmStorage, FilmStorage::countLikesInStorage)
+                .description("Likes across all films")
+                .register(registry);
+        Gauge.builder("filmorate.friends.edges", userStorage, UserStorage::countFriendshipsInStorage)
+                .description("Friend list entries across all users, two per friendship")
+                .register(registry);
+    }
+}
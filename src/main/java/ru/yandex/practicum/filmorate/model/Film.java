@@ -5,6 +5,7 @@ import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.ToString;
 import ru.yandex.practicum.filmorate.validation.FilmDate;
 import ru.yandex.practicum.filmorate.validation.FilmDuration;
 
@@ -30,5 +31,11 @@ public class Film {
     @FilmDuration
     private Duration duration;
 
+    @ToString.Exclude
     private Set<Long> likes;
+
+    @ToString.Include(name = "likes")
+    private int likesCount() {
+        return likes == null ? 0 : likes.size();
+    }
 }
@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Criteria of {@code GET /films/search}. Every filter is optional and ranges include their bounds.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+public class FilmSearch {
+    /**
+     * Case-insensitive substring of the name.
+     */
+    private String name;
+
+    /**
+     * Case-insensitive prefix of the name.
+     */
+    private String namePrefix;
+
+    private LocalDate releasedFrom;
+
+    private LocalDate releasedTo;
+
+    private Duration minDuration;
+
+    private Duration maxDuration;
+
+    @Builder.Default
+    private Sort sort = Sort.LIKES;
+
+    @Builder.Default
+    private int limit = 100;
+
+    public boolean hasFilters() {
+        return name != null || namePrefix != null || releasedFrom != null || releasedTo != null
+                || minDuration != null || maxDuration != null;
+    }
+
+    public boolean matches(Film film) {
+        String filmName = film.getName() == null ? "" : film.getName().toLowerCase(Locale.ROOT);
+        if (name != null && !filmName.contains(name.toLowerCase(Locale.ROOT))) {
+            return false;
+        }
+        if (namePrefix != null && !filmName.startsWith(namePrefix.toLowerCase(Locale.ROOT))) {
+            return false;
+        }
+        if (releasedFrom != null || releasedTo != null) {
+            LocalDate released = film.getReleaseDate();
+            if (released == null || (releasedFrom != null && released.isBefore(releasedFrom))
+                    || (releasedTo != null && released.isAfter(releasedTo))) {
+                return false;
+            }
+        }
+        if (minDuration != null || maxDuration != null) {
+            Duration duration = film.getDuration();
+            return duration != null && (minDuration == null || duration.compareTo(minDuration) >= 0)
+                    && (maxDuration == null || duration.compareTo(maxDuration) <= 0);
+        }
+        return true;
+    }
+
+    public enum Sort {
+        /**
+         * Most liked first.
+         */
+        LIKES,
+        /**
+         * Most recently released first.
+         */
+        DATE
+    }
+}
@@ -4,6 +4,7 @@ import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.ToString;
 
 import java.time.LocalDate;
 import java.util.Set;
@@ -26,5 +27,11 @@ public class User {
     @PastOrPresent(message = "Birthday date can't be in future")
     private LocalDate birthday;
 
+    @ToString.Exclude
     private final Set<Long> friends;
+
+    @ToString.Include(name = "friends")
+    private int friendsCount() {
+        return friends == null ? 0 : friends.size();
+    }
 }
@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads what {@link BinaryWriter} wrote, either from a buffer or from a file that is memory-mapped
+ * window by window, so snapshots larger than 2 GB load without copying through the heap.
+ */
+public class BinaryReader {
+    private static final long WINDOW_SIZE = 256L << 20;
+
+    private final FileChannel channel;
+    private final long limit;
+    private long windowStart;
+    private ByteBuffer buffer;
+
+    private BinaryReader(FileChannel channel, long limit, ByteBuffer buffer) {
+        this.channel = channel;
+        this.limit = limit;
+        this.buffer = buffer;
+    }
+
+    public static BinaryReader wrap(ByteBuffer buffer) {
+        return new BinaryReader(null, buffer.remaining(), buffer);
+    }
+
+    public static BinaryReader map(FileChannel channel) throws IOException {
+        BinaryReader reader = new BinaryReader(channel, channel.size(), ByteBuffer.allocate(0));
+        reader.remap(0);
+        return reader;
+    }
+
+    public boolean hasRemaining() {
+        return windowStart + buffer.position() < limit;
+    }
+
+    public byte readByte() throws IOException {
+        ensure(Byte.BYTES);
+        return buffer.get();
+    }
+
+    public int readInt() throws IOException {
+        ensure(Integer.BYTES);
+        return buffer.getInt();
+    }
+
+    public long readLong() throws IOException {
+        ensure(Long.BYTES);
+        return buffer.getLong();
+    }
+
+    public String readString() throws IOException {
+        int length = readInt();
+        if (length < 0) {
+            return null;
+        }
+        ensure(length);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public long[] readLongs() throws IOException {
+        int length = readInt();
+        long[] values = new long[length];
+        int read = 0;
+        while (read < length) {
+            ensure(Long.BYTES);
+            int chunk = Math.min(length - read, buffer.remaining() / Long.BYTES);
+            buffer.asLongBuffer().get(values, read, chunk);
+            buffer.position(buffer.position() + chunk * Long.BYTES);
+            read += chunk;
+        }
+        return values;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        long position = windowStart + buffer.position();
+        if (channel == null || limit - position < bytes) {
+            throw new IOException(String.format("Unexpected end of data at byte %d", position));
+        }
+        remap(position);
+    }
+
+    private void remap(long position) throws IOException {
+        long size = Math.min(WINDOW_SIZE, limit - position);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        windowStart = position;
+    }
+}
@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.persistence;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+public class BinaryWriter {
+    static final long NULL_VALUE = Long.MIN_VALUE;
+
+    private final DataOutputStream out;
+
+    public BinaryWriter(OutputStream out) {
+        this.out = new DataOutputStream(out);
+    }
+
+    public void writeByte(int value) throws IOException {
+        out.writeByte(value);
+    }
+
+    public void writeInt(int value) throws IOException {
+        out.writeInt(value);
+    }
+
+    public void writeLong(long value) throws IOException {
+        out.writeLong(value);
+    }
+
+    public void writeString(String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public void writeLongs(long[] values) throws IOException {
+        out.writeInt(values.length);
+        for (long value : values) {
+            out.writeLong(value);
+        }
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+}
@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.persistence;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.utility.LongHashSet;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Set;
+
+public final class EntityCodec {
+    private EntityCodec() {
+    }
+
+    public static void writeFilm(BinaryWriter writer, Film film, boolean withLikes) throws IOException {
+        writer.writeLong(film.getId());
+        writer.writeString(film.getName());
+        writer.writeString(film.getDescription());
+        writer.writeLong(film.getReleaseDate() == null ? BinaryWriter.NULL_VALUE : film.getReleaseDate().toEpochDay());
+        writer.writeLong(film.getDuration() == null ? BinaryWriter.NULL_VALUE : film.getDuration().toSeconds());
+        if (withLikes) {
+            writer.writeLongs(toLongArray(film.getLikes()));
+        }
+    }
+
+    public static Film readFilm(BinaryReader reader, boolean withLikes) throws IOException {
+        Film.FilmBuilder builder = Film.builder()
+                .id(reader.readLong())
+                .name(reader.readString())
+                .description(reader.readString());
+        long releaseDate = reader.readLong();
+        long duration = reader.readLong();
+        return builder
+                .releaseDate(releaseDate == BinaryWriter.NULL_VALUE ? null : LocalDate.ofEpochDay(releaseDate))
+                .duration(duration == BinaryWriter.NULL_VALUE ? null : Duration.ofSeconds(duration))
+                .likes(withLikes ? new LongHashSet(reader.readLongs()) : null)
+                .build();
+    }
+
+    public static void writeUser(BinaryWriter writer, User user, boolean withFriends) throws IOException {
+        writer.writeLong(user.getId());
+        writer.writeString(user.getEmail());
+        writer.writeString(user.getLogin());
+        writer.writeString(user.getName());
+        writer.writeLong(user.getBirthday() == null ? BinaryWriter.NULL_VALUE : user.getBirthday().toEpochDay());
+        if (withFriends) {
+            writer.writeLongs(toLongArray(user.getFriends()));
+        }
+    }
+
+    public static User readUser(BinaryReader reader, boolean withFriends) throws IOException {
+        User.UserBuilder builder = User.builder()
+                .id(reader.readLong())
+                .email(reader.readString())
+                .login(reader.readString())
+                .name(reader.readString());
+        long birthday = reader.readLong();
+        return builder
+                .birthday(birthday == BinaryWriter.NULL_VALUE ? null : LocalDate.ofEpochDay(birthday))
+                .friends(withFriends ? new LongHashSet(reader.readLongs()) : null)
+                .build();
+    }
+
+    private static long[] toLongArray(Set<Long> values) {
+        if (values == null) {
+            return new long[0];
+        }
+        if (values instanceof LongHashSet longHashSet) {
+            return longHashSet.toLongArray();
+        }
+        return values.stream().mapToLong(Long::longValue).toArray();
+    }
+}
@@ -0,0 +1,135 @@
+package ru.yandex.practicum.filmorate.persistence;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.StorageJournal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the in-memory storages durable: every change goes to a write-ahead log that is fsynced in groups
+ * every {@code flush-interval}, and a snapshot periodically lets old log segments go.
+ * On start the latest snapshot is loaded and the log written after it is replayed.
+ */
+@Slf4j
+@Component
+@Profile("!jdbc & !offheap")
+@ConditionalOnProperty(prefix = "filmorate.persistence", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(PersistenceProperties.class)
+public class PersistenceManager {
+    private final PersistenceProperties properties;
+    private final InMemoryFilmStorage filmStorage;
+    private final InMemoryUserStorage userStorage;
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private ScheduledExecutorService scheduler;
+    private WriteAheadLog wal;
+
+    public PersistenceManager(PersistenceProperties properties, InMemoryFilmStorage filmStorage,
+                              InMemoryUserStorage userStorage) {
+        this.properties = properties;
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Path directory = properties.getDirectory();
+        Files.createDirectories(directory);
+
+        long replayFrom = 0;
+        Optional<Path> snapshot = Snapshots.latest(directory);
+        if (snapshot.isPresent()) {
+            replayFrom = Snapshots.load(snapshot.get(), filmStorage, userStorage);
+            log.info("Loaded snapshot {}", snapshot.get());
+        }
+        long lastSegment = WriteAheadLog.replay(directory, replayFrom,
+                record -> WalJournal.apply(record, filmStorage, userStorage));
+        log.info("Recovered {} films and {} users", filmStorage.countEntitiesInStorage(),
+                userStorage.countEntitiesInStorage());
+
+        wal = new WriteAheadLog(directory, Math.max(lastSegment, replayFrom) + 1);
+        WalJournal journal = new WalJournal(wal);
+        filmStorage.setJournal(journal);
+        userStorage.setJournal(journal);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "filmorate-persistence");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long flushMillis = properties.getFlushInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        long snapshotMillis = properties.getSnapshotInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::snapshotQuietly, snapshotMillis, snapshotMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public void flush() throws IOException {
+        wal.flush();
+    }
+
+    /**
+     * Writes a snapshot and drops the log segments and snapshots it supersedes.
+     * The storages keep accepting writes meanwhile: replay starts from the segment that was active
+     * when the snapshot began, so changes the snapshot missed are applied again on recovery.
+     */
+    public void snapshot() throws IOException {
+        snapshotLock.lock();
+        try {
+            Path directory = properties.getDirectory();
+            long replayFrom = wal.roll();
+            Path snapshot = Snapshots.write(directory, replayFrom, filmStorage, userStorage);
+            Snapshots.deleteOlderThan(directory, snapshot);
+            WriteAheadLog.deleteSegmentsBefore(directory, replayFrom);
+            log.info("Written snapshot {}", snapshot);
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(properties.getSnapshotInterval().toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Persistence tasks did not finish in time");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        filmStorage.setJournal(StorageJournal.NONE);
+        userStorage.setJournal(StorageJournal.NONE);
+        wal.close();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException ex) {
+            log.error("Failed to flush the write-ahead log", ex);
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | UncheckedIOException ex) {
+            log.error("Failed to write a snapshot", ex);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.persistence;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.persistence")
+public class PersistenceProperties {
+    private boolean enabled;
+    private Path directory = Path.of("data");
+    private Duration flushInterval = Duration.ofMillis(50);
+    private Duration snapshotInterval = Duration.ofMinutes(10);
+}
@@ -0,0 +1,133 @@
+package ru.yandex.practicum.filmorate.persistence;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Compact binary image of both storages. A snapshot is taken while writes go on, so it records the WAL segment
+ * from which replay has to start to catch up with everything that happened during and after it.
+ * It also records the last film and user ids handed out: the log that created a since deleted entity
+ * is dropped with the snapshot, and without them a restart would hand the deleted ids out again.
+ */
+public final class Snapshots {
+    private static final int MAGIC = 0x464D534E;
+    private static final int VERSION = 2;
+    private static final int VERSION_WITHOUT_LAST_IDS = 1;
+    private static final byte FILM = 1;
+    private static final byte USER = 2;
+    private static final byte END = 0;
+    private static final int PAGE_SIZE = 10_000;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+
+    private Snapshots() {
+    }
+
+    public static Path write(Path directory, long replayFromSegment, InMemoryFilmStorage filmStorage,
+                             InMemoryUserStorage userStorage) throws IOException {
+        Path target = directory.resolve(String.format("%s%020d%s", PREFIX, replayFromSegment, SUFFIX));
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile())) {
+            BinaryWriter writer = new BinaryWriter(new BufferedOutputStream(file, 1 << 20));
+            writer.writeInt(MAGIC);
+            writer.writeInt(VERSION);
+            writer.writeLong(replayFromSegment);
+            writer.writeLong(filmStorage.readLastIdFromStorage());
+            writer.writeLong(userStorage.readLastIdFromStorage());
+
+            List<Film> films = filmStorage.readEntitiesPageFromStorage(null, PAGE_SIZE);
+            while (!films.isEmpty()) {
+                for (Film film : films) {
+                    writer.writeByte(FILM);
+                    EntityCodec.writeFilm(writer, film, true);
+                }
+                films = filmStorage.readEntitiesPageFromStorage(films.get(films.size() - 1).getId(), PAGE_SIZE);
+            }
+
+            List<User> users = userStorage.readEntitiesPageFromStorage(null, PAGE_SIZE);
+            while (!users.isEmpty()) {
+                for (User user : users) {
+                    writer.writeByte(USER);
+                    EntityCodec.writeUser(writer, user, true);
+                }
+                users = userStorage.readEntitiesPageFromStorage(users.get(users.size() - 1).getId(), PAGE_SIZE);
+            }
+
+            writer.writeByte(END);
+            writer.flush();
+            file.getFD().sync();
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return target;
+    }
+
+    /**
+     * Loads a snapshot into empty storages.
+     *
+     * @return the WAL segment replay has to start from
+     */
+    public static long load(Path snapshot, InMemoryFilmStorage filmStorage,
+                            InMemoryUserStorage userStorage) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            BinaryReader reader = BinaryReader.map(channel);
+            if (reader.readInt() != MAGIC) {
+                throw new IOException(String.format("%s is not a Filmorate snapshot", snapshot));
+            }
+            int version = reader.readInt();
+            if (version != VERSION && version != VERSION_WITHOUT_LAST_IDS) {
+                throw new IOException(String.format("%s has unsupported snapshot version %d", snapshot, version));
+            }
+            long replayFromSegment = reader.readLong();
+            if (version == VERSION) {
+                filmStorage.skipIdsInStorage(reader.readLong());
+                userStorage.skipIdsInStorage(reader.readLong());
+            }
+            byte type = reader.readByte();
+            while (type != END) {
+                switch (type) {
+                    case FILM -> filmStorage.restoreEntityInStorage(EntityCodec.readFilm(reader, true));
+                    case USER -> userStorage.restoreEntityInStorage(EntityCodec.readUser(reader, true));
+                    default -> throw new IOException(String.format("Unknown snapshot entry type %d", type));
+                }
+                type = reader.readByte();
+            }
+            return replayFromSegment;
+        }
+    }
+
+    public static Optional<Path> latest(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(Snapshots::isSnapshot)
+                    .max(Path::compareTo);
+        }
+    }
+
+    public static void deleteOlderThan(Path directory, Path snapshot) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(Snapshots::isSnapshot).toList()) {
+                if (file.compareTo(snapshot) < 0) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private static boolean isSnapshot(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+    }
+}
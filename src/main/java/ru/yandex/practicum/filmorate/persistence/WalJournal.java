@@ -0,0 +1,127 @@
+package ru.yandex.practicum.filmorate.persistence;
+
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.StorageJournal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+public class WalJournal implements StorageJournal {
+    private static final byte FILM_SAVED = 1;
+    private static final byte FILM_DELETED = 2;
+    private static final byte LIKE_ADDED = 3;
+    private static final byte LIKE_REMOVED = 4;
+    private static final byte USER_SAVED = 5;
+    private static final byte USER_DELETED = 6;
+    private static final byte FRIEND_ADDED = 7;
+    private static final byte FRIEND_REMOVED = 8;
+
+    private final WriteAheadLog wal;
+
+    public WalJournal(WriteAheadLog wal) {
+        this.wal = wal;
+    }
+
+    @Override
+    public void filmSaved(Film film) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        BinaryWriter writer = new BinaryWriter(bytes);
+        try {
+            writer.writeByte(FILM_SAVED);
+            EntityCodec.writeFilm(writer, film, false);
+            writer.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        wal.append(bytes.toByteArray());
+    }
+
+    @Override
+    public void filmDeleted(Long filmId) {
+        wal.append(idRecord(FILM_DELETED, filmId));
+    }
+
+    @Override
+    public void likeAdded(Long filmId, Long userId) {
+        wal.append(pairRecord(LIKE_ADDED, filmId, userId));
+    }
+
+    @Override
+    public void likeRemoved(Long filmId, Long userId) {
+        wal.append(pairRecord(LIKE_REMOVED, filmId, userId));
+    }
+
+    @Override
+    public void userSaved(User user) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        BinaryWriter writer = new BinaryWriter(bytes);
+        try {
+            writer.writeByte(USER_SAVED);
+            EntityCodec.writeUser(writer, user, false);
+            writer.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        wal.append(bytes.toByteArray());
+    }
+
+    @Override
+    public void userDeleted(Long userId) {
+        wal.append(idRecord(USER_DELETED, userId));
+    }
+
+    @Override
+    public void friendAdded(Long userId, Long friendId) {
+        wal.append(pairRecord(FRIEND_ADDED, userId, friendId));
+    }
+
+    @Override
+    public void friendRemoved(Long userId, Long friendId) {
+        wal.append(pairRecord(FRIEND_REMOVED, userId, friendId));
+    }
+
+    /**
+     * Applies one logged change. Records are replayed over a snapshot that may already contain
+     * some of them, so every change is idempotent and changes to entities that are gone are skipped.
+     */
+    public static void apply(BinaryReader record, InMemoryFilmStorage filmStorage,
+                             InMemoryUserStorage userStorage) throws IOException {
+        byte type = record.readByte();
+        try {
+            switch (type) {
+                case FILM_SAVED -> filmStorage.restoreEntityInStorage(EntityCodec.readFilm(record, false));
+                case FILM_DELETED -> filmStorage.deleteEntityFromStorage(record.readLong());
+                case LIKE_ADDED -> filmStorage.addLikeInStorage(record.readLong(), record.readLong());
+                case LIKE_REMOVED -> filmStorage.removeLikeFromStorage(record.readLong(), record.readLong());
+                case USER_SAVED -> userStorage.restoreEntityInStorage(EntityCodec.readUser(record, false));
+                case USER_DELETED -> userStorage.deleteEntityFromStorage(record.readLong());
+                case FRIEND_ADDED -> userStorage.addFriendInStorage(record.readLong(), record.readLong());
+                case FRIEND_REMOVED -> userStorage.removeFriendFromStorage(record.readLong(), record.readLong());
+                default -> throw new IOException(String.format("Unknown WAL record type %d", type));
+            }
+        } catch (NotFoundException ignored) {
+            // the entity was deleted later in the log or before the snapshot was taken
+        }
+    }
+
+    private static byte[] idRecord(byte type, long id) {
+        return ByteBuffer.allocate(Byte.BYTES + Long.BYTES)
+                .put(type)
+                .putLong(id)
+                .array();
+    }
+
+    private static byte[] pairRecord(byte type, long first, long second) {
+        return ByteBuffer.allocate(Byte.BYTES + Long.BYTES * 2)
+                .put(type)
+                .putLong(first)
+                .putLong(second)
+                .array();
+    }
+}
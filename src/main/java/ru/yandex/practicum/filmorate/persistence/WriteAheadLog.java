@@ -0,0 +1,219 @@
+package ru.yandex.practicum.filmorate.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log split into numbered segments. Appends only copy the record into a memory buffer;
+ * {@link #flush()} writes everything appended since the previous flush and fsyncs once for the whole batch.
+ * Every record is framed as {@code length, crc32, payload}, so a torn tail after a crash is detected and skipped.
+ */
+@Slf4j
+public class WriteAheadLog implements Closeable {
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+    private static final int INITIAL_BUFFER_SIZE = 1 << 16;
+    private static final int MAX_RECORD_SIZE = 1 << 24;
+
+    private final Path directory;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private byte[] pending = new byte[INITIAL_BUFFER_SIZE];
+    private byte[] spare = new byte[INITIAL_BUFFER_SIZE];
+    private int pendingSize;
+    private FileChannel channel;
+    private long segment;
+
+    public WriteAheadLog(Path directory, long segment) throws IOException {
+        this.directory = directory;
+        this.segment = segment;
+        this.channel = open(segment);
+    }
+
+    public void append(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        int checksum = (int) crc.getValue();
+        appendLock.lock();
+        try {
+            int required = pendingSize + HEADER_SIZE + payload.length;
+            if (required > pending.length) {
+                pending = Arrays.copyOf(pending, Math.max(required, pending.length * 2));
+            }
+            ByteBuffer.wrap(pending, pendingSize, HEADER_SIZE)
+                    .putInt(payload.length)
+                    .putInt(checksum);
+            System.arraycopy(payload, 0, pending, pendingSize + HEADER_SIZE, payload.length);
+            pendingSize = required;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public void flush() throws IOException {
+        writeLock.lock();
+        try {
+            writePending();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public long currentSegment() {
+        return segment;
+    }
+
+    /**
+     * Flushes the current segment and starts the next one.
+     *
+     * @return number of the segment that was active before the roll
+     */
+    public long roll() throws IOException {
+        writeLock.lock();
+        try {
+            long rolled;
+            appendLock.lock();
+            try {
+                writePending();
+                channel.close();
+                rolled = segment;
+                segment++;
+                channel = open(segment);
+            } finally {
+                appendLock.unlock();
+            }
+            return rolled;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            writePending();
+            channel.close();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public static List<Long> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * Feeds every intact record of segments numbered {@code fromSegment} and later to the handler.
+     *
+     * @return the highest segment number found, or {@code fromSegment - 1} when there is none
+     */
+    public static long replay(Path directory, long fromSegment, RecordHandler handler) throws IOException {
+        long lastSegment = fromSegment - 1;
+        for (long segment : segments(directory)) {
+            if (segment < fromSegment) {
+                continue;
+            }
+            lastSegment = segment;
+            long records = 0;
+            try (InputStream in = Files.newInputStream(segmentPath(directory, segment));
+                 DataInputStream data = new DataInputStream(new BufferedInputStream(in, 1 << 20))) {
+                byte[] payload;
+                while ((payload = readRecord(data)) != null) {
+                    handler.handle(BinaryReader.wrap(ByteBuffer.wrap(payload)));
+                    records++;
+                }
+            }
+            log.info("Replayed {} records from WAL segment {}", records, segment);
+        }
+        return lastSegment;
+    }
+
+    public static void deleteSegmentsBefore(Path directory, long segment) throws IOException {
+        for (long existing : segments(directory)) {
+            if (existing < segment) {
+                Files.deleteIfExists(segmentPath(directory, existing));
+            }
+        }
+    }
+
+    private void writePending() throws IOException {
+        byte[] toWrite;
+        int size;
+        appendLock.lock();
+        try {
+            toWrite = pending;
+            size = pendingSize;
+            pending = spare;
+            pendingSize = 0;
+        } finally {
+            appendLock.unlock();
+        }
+        if (size > 0) {
+            ByteBuffer buffer = ByteBuffer.wrap(toWrite, 0, size);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        spare = toWrite;
+    }
+
+    private FileChannel open(long segment) throws IOException {
+        return FileChannel.open(segmentPath(directory, segment),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static byte[] readRecord(DataInputStream data) throws IOException {
+        try {
+            int length = data.readInt();
+            int checksum = data.readInt();
+            if (length < 0 || length > MAX_RECORD_SIZE) {
+                log.warn("Corrupted WAL record length {}, ignoring the rest of the segment", length);
+                return null;
+            }
+            byte[] payload = data.readNBytes(length);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if (payload.length != length || (int) crc.getValue() != checksum) {
+                log.warn("Torn WAL record found, ignoring the rest of the segment");
+                return null;
+            }
+            return payload;
+        } catch (EOFException ex) {
+            return null;
+        }
+    }
+
+    private static Path segmentPath(Path directory, long segment) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    public interface RecordHandler {
+        void handle(BinaryReader record) throws IOException;
+    }
+}
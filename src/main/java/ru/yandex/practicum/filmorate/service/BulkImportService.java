@@ -0,0 +1,382 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.dto.ImportErrorDto;
+import ru.yandex.practicum.filmorate.dto.ImportReportDto;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.utility.LongHashSet;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Streams NDJSON or CSV uploads into the storages. Records are parsed and validated as they arrive and
+ * written in batches, so the upload is never held in memory; rejected records end up in a report that
+ * lists the first {@value #MAX_REPORTED_ERRORS} problems by line number.
+ */
+@Slf4j
+@Service
+public class BulkImportService {
+    private static final int ENTITY_BATCH_SIZE = 1_000;
+    private static final int PAIR_BATCH_SIZE = 1 << 16;
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final FilmService filmService;
+    private final UserService userService;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final CsvMapper csvMapper;
+
+    public BulkImportService(FilmService filmService, UserService userService, Validator validator,
+                             ObjectMapper objectMapper) {
+        this.filmService = filmService;
+        this.userService = userService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.csvMapper = CsvMapper.builder()
+                .findAndAddModules()
+                .build();
+    }
+
+    public ImportReportDto importFilms(InputStream body, ImportFormat format) throws IOException {
+        Report report = new Report();
+        importEntities(body, format, Film.class, report, filmService::importFilms);
+        log.info("Films imported: {}, rejected: {}", report.accepted, report.rejected);
+        return report.toDto();
+    }
+
+    public ImportReportDto importUsers(InputStream body, ImportFormat format) throws IOException {
+        Report report = new Report();
+        importEntities(body, format, User.class, report, userService::importUsers);
+        log.info("Users imported: {}, rejected: {}", report.accepted, report.rejected);
+        return report.toDto();
+    }
+
+    public ImportReportDto importLikes(InputStream body, ImportFormat format) throws IOException {
+        Report report = new Report();
+        PairBatch batch = new PairBatch(report, (filmIds, userIds) -> {
+            Set<Long> films = filmService.getExistingFilmIds(new LongHashSet(filmIds));
+            Set<Long> users = userService.getExistingUserIds(new LongHashSet(userIds));
+            return i -> {
+                if (!films.contains(filmIds[i])) {
+                    return filmIds[i];
+                }
+                return users.contains(userIds[i]) ? null : userIds[i];
+            };
+        }, filmService::importLikes);
+        readPairs(body, format, "filmId", "userId", batch, report);
+        batch.flush();
+        log.info("Likes imported: {}, rejected: {}", report.accepted, report.rejected);
+        return report.toDto();
+    }
+
+    public ImportReportDto importFriendships(InputStream body, ImportFormat format) throws IOException {
+        Report report = new Report();
+        PairBatch batch = new PairBatch(report, (userIds, friendIds) -> {
+            LongHashSet distinct = new LongHashSet(userIds);
+            for (long friendId : friendIds) {
+                distinct.add(friendId);
+            }
+            Set<Long> users = userService.getExistingUserIds(distinct);
+            return i -> {
+                if (!users.contains(userIds[i])) {
+                    return userIds[i];
+                }
+                return users.contains(friendIds[i]) ? null : friendIds[i];
+            };
+        }, userService::importFriendships);
+        readPairs(body, format, "userId", "friendId", batch, report);
+        batch.flush();
+        log.info("Friendships imported: {}, rejected: {}", report.accepted, report.rejected);
+        return report.toDto();
+    }
+
+    private <T> void importEntities(InputStream body, ImportFormat format, Class<T> type, Report report,
+                                    Consumer<List<T>> writer) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8), 1 << 16);
+        ObjectReader recordReader = objectMapper.readerFor(type);
+        long lineNumber = 0;
+        if (format == ImportFormat.CSV) {
+            String header = reader.readLine();
+            lineNumber++;
+            if (header == null) {
+                return;
+            }
+            CsvSchema.Builder schema = CsvSchema.builder();
+            for (String column : header.split(",")) {
+                schema.addColumn(column.trim());
+            }
+            recordReader = csvMapper.readerFor(type).with(schema.build());
+        }
+
+        List<T> batch = new ArrayList<>(ENTITY_BATCH_SIZE);
+        List<Long> batchLines = new ArrayList<>(ENTITY_BATCH_SIZE);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            T entity;
+            try {
+                entity = recordReader.readValue(line);
+            } catch (JsonProcessingException ex) {
+                report.reject(lineNumber, ex.getOriginalMessage());
+                continue;
+            }
+            Set<ConstraintViolation<T>> violations = validator.validate(entity);
+            if (!violations.isEmpty()) {
+                report.reject(lineNumber, violations.iterator().next().getMessage());
+                continue;
+            }
+            batch.add(entity);
+            batchLines.add(lineNumber);
+            if (batch.size() == ENTITY_BATCH_SIZE) {
+                writeEntities(batch, batchLines, writer, report);
+                batch = new ArrayList<>(ENTITY_BATCH_SIZE);
+                batchLines = new ArrayList<>(ENTITY_BATCH_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeEntities(batch, batchLines, writer, report);
+        }
+    }
+
+    /**
+     * Writes the batch at once, or record by record when it collides with a unique key, so that only the
+     * colliding records are rejected.
+     */
+    private static <T> void writeEntities(List<T> batch, List<Long> lines, Consumer<List<T>> writer,
+                                          Report report) {
+        try {
+            writer.accept(batch);
+            report.accepted += batch.size();
+        } catch (ConflictException ex) {
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    writer.accept(List.of(batch.get(i)));
+                    report.accepted++;
+                } catch (ConflictException conflict) {
+                    report.reject(lines.get(i), conflict.getMessage());
+                }
+            }
+        }
+    }
+
+    private void readPairs(InputStream body, ImportFormat format, String firstField, String secondField,
+                           PairBatch batch, Report report) throws IOException {
+        if (format == ImportFormat.CSV) {
+            readCsvPairs(body, batch, report);
+            return;
+        }
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                long lineNumber = parser.currentLocation().getLineNr();
+                if (token != JsonToken.START_OBJECT) {
+                    report.reject(lineNumber, "Expected a JSON object");
+                    parser.skipChildren();
+                    continue;
+                }
+                long first = -1;
+                long second = -1;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    JsonToken value = parser.nextToken();
+                    if (value == JsonToken.VALUE_NUMBER_INT && field.equals(firstField)) {
+                        first = parser.getLongValue();
+                    } else if (value == JsonToken.VALUE_NUMBER_INT && field.equals(secondField)) {
+                        second = parser.getLongValue();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                if (first <= 0 || second <= 0) {
+                    report.reject(lineNumber, String.format("Expected positive %s and %s", firstField, secondField));
+                } else {
+                    batch.add(first, second, lineNumber);
+                }
+            }
+        } catch (JsonProcessingException ex) {
+            report.reject(ex.getLocation() == null ? 0 : ex.getLocation().getLineNr(),
+                    "Malformed JSON, import stopped: " + ex.getOriginalMessage());
+        }
+    }
+
+    private static void readCsvPairs(InputStream in, PairBatch batch, Report report) throws IOException {
+        CsvPairParser parser = new CsvPairParser(batch, report);
+        byte[] buffer = new byte[1 << 16];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            parser.feed(buffer, read);
+        }
+        parser.finish();
+    }
+
+    private interface PairCheck {
+        /**
+         * @return resolves a pair index to the id that does not exist, or null when both do
+         */
+        MissingId check(long[] first, long[] second);
+    }
+
+    private interface MissingId {
+        Long of(int index);
+    }
+
+    private interface PairWriter {
+        void write(long[] first, long[] second);
+    }
+
+    private static final class PairBatch {
+        private final Report report;
+        private final PairCheck check;
+        private final PairWriter writer;
+        private final long[] first = new long[PAIR_BATCH_SIZE];
+        private final long[] second = new long[PAIR_BATCH_SIZE];
+        private final long[] lines = new long[PAIR_BATCH_SIZE];
+        private int size;
+
+        private PairBatch(Report report, PairCheck check, PairWriter writer) {
+            this.report = report;
+            this.check = check;
+            this.writer = writer;
+        }
+
+        private void add(long firstId, long secondId, long line) {
+            first[size] = firstId;
+            second[size] = secondId;
+            lines[size] = line;
+            size++;
+            if (size == PAIR_BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (size == 0) {
+                return;
+            }
+            long[] batchFirst = Arrays.copyOf(first, size);
+            long[] batchSecond = Arrays.copyOf(second, size);
+            MissingId missing = check.check(batchFirst, batchSecond);
+            long[] validFirst = new long[size];
+            long[] validSecond = new long[size];
+            int valid = 0;
+            for (int i = 0; i < size; i++) {
+                Long missingId = missing.of(i);
+                if (missingId != null) {
+                    report.reject(lines[i], new NotFoundException(missingId).getMessage());
+                } else {
+                    validFirst[valid] = batchFirst[i];
+                    validSecond[valid] = batchSecond[i];
+                    valid++;
+                }
+            }
+            if (valid > 0) {
+                writer.write(Arrays.copyOf(validFirst, valid), Arrays.copyOf(validSecond, valid));
+            }
+            report.accepted += valid;
+            size = 0;
+        }
+    }
+
+    /**
+     * Parses {@code first,second} lines straight from bytes. A first line that is not numeric is taken for a header.
+     */
+    private static final class CsvPairParser {
+        private final PairBatch batch;
+        private final Report report;
+        private long lineNumber = 1;
+        private long first;
+        private long second;
+        private int field;
+        private int digits;
+        private boolean malformed;
+
+        private CsvPairParser(PairBatch batch, Report report) {
+            this.batch = batch;
+            this.report = report;
+        }
+
+        private void feed(byte[] buffer, int length) {
+            for (int i = 0; i < length; i++) {
+                byte next = buffer[i];
+                if (next == '\n') {
+                    endLine();
+                } else if (next >= '0' && next <= '9') {
+                    if (field == 0) {
+                        first = first * 10 + (next - '0');
+                    } else {
+                        second = second * 10 + (next - '0');
+                    }
+                    digits++;
+                    malformed |= digits > 18;
+                } else if (next == ',' && field == 0 && digits > 0) {
+                    field = 1;
+                    digits = 0;
+                } else if (next != ' ' && next != '\r' && next != '\t') {
+                    malformed = true;
+                }
+            }
+        }
+
+        private void finish() {
+            endLine();
+        }
+
+        private void endLine() {
+            if (field == 1 && digits > 0 && !malformed && first > 0 && second > 0) {
+                batch.add(first, second, lineNumber);
+            } else if ((field != 0 || digits != 0 || malformed) && !(lineNumber == 1 && malformed)) {
+                report.reject(lineNumber, "Expected two positive ids separated by a comma");
+            }
+            lineNumber++;
+            first = 0;
+            second = 0;
+            field = 0;
+            digits = 0;
+            malformed = false;
+        }
+    }
+
+    private static final class Report {
+        private final List<ImportErrorDto> errors = new ArrayList<>();
+        private long accepted;
+        private long rejected;
+
+        private void reject(long line, String message) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportErrorDto(line, message));
+            }
+        }
+
+        private ImportReportDto toDto() {
+            errors.sort(Comparator.comparingLong(ImportErrorDto::getLine));
+            return new ImportReportDto(accepted, rejected, errors);
+        }
+    }
+}
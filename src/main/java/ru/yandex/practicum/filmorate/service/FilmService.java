@@ -2,39 +2,78 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSearch;
 import ru.yandex.practicum.filmorate.model.User;
-import ru.yandex.practicum.filmorate.storage.InMemoryStorageCRUD;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.utility.LongHashSet;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 @AllArgsConstructor
 public class FilmService {
-    private final InMemoryStorageCRUD<Film> filmStorage;
+    private final FilmStorage filmStorage;
     private final UserService userService;
+    private final TrendingService trendingService;
+    private final RecommendationService recommendationService;
+    private final AtomicLong filmsVersion = new AtomicLong();
+    private final LongHashSet closedLikers = new LongHashSet();
 
     public Film createFilm(Film film) {
-        return filmStorage.createEntityInStorage(film);
+        Film created = filmStorage.createEntityInStorage(film);
+        filmsVersion.incrementAndGet();
+        return created;
+    }
+
+    public List<Film> importFilms(List<Film> films) {
+        List<Film> created = filmStorage.createEntitiesInStorage(films);
+        filmsVersion.incrementAndGet();
+        return created;
     }
 
     public Film updateFilm(Film film) {
-        return filmStorage.updateEntityInStorage(film);
+        Film updated = filmStorage.updateEntityInStorage(film);
+        filmsVersion.incrementAndGet();
+        return updated;
+    }
+
+    /**
+     * Deletes the film under its trending lock stripe, where every like and unlike of the film is stored,
+     * so no like can slip in between.
+     */
+    public void deleteFilm(Long filmId) {
+        trendingService.removeFilm(filmId, () -> filmStorage.deleteEntityFromStorage(filmId));
+        recommendationService.filmRemoved(filmId);
+        filmsVersion.incrementAndGet();
+    }
+
+    /**
+     * Grows after every film or like change made through this service, so anything derived from the
+     * films is still current while the version it was built at is.
+     */
+    public long getFilmsVersion() {
+        return filmsVersion.get();
     }
 
     public List<Film> getAllFilms() {
         return filmStorage.readAllEntityFromStorage();
     }
 
+    public List<Film> getFilmsPage(Long afterId, int limit) {
+        return filmStorage.readEntitiesPageFromStorage(afterId, limit);
+    }
+
     public List<Film> getTopRatedFilms(int count) {
-        Comparator<Film> comparator = Comparator.comparing(film -> film.getLikes().size(),
-                Comparator.reverseOrder());
+        return filmStorage.readTopRatedFilmsFromStorage(count);
+    }
 
-        return filmStorage.readAllEntityFromStorage().stream()
-                .sorted(comparator)
-                .limit(count)
-                .collect(Collectors.toList());
+    public List<Film> searchFilms(FilmSearch search) {
+        return filmStorage.searchFilmsInStorage(search);
     }
 
     public Film getFilmById(Long filmId) {
@@ -42,25 +81,93 @@ public class FilmService {
     }
 
     public void addLikeToFilm(Long filmId, Long userId) {
-        Film film = filmStorage.readEntityFromStorage(filmId);
         User user = userService.getUser(userId);
+        if (trendingService.addLike(filmId, user.getId(), () -> addLikeOfPresentUser(filmId, user.getId()))) {
+            recommendationService.likeChanged(filmId, user.getId());
+        }
+        filmsVersion.incrementAndGet();
+    }
 
-        Set<Long> likes = film.getLikes();
-        likes.add(user.getId());
-        film.setLikes(likes);
-
-        filmStorage.updateEntityInStorage(film);
+    /**
+     * Stores the like, then checks that the user is not being deleted. A deletion that closes the user's
+     * likes after the check finds this like and removes it; if the likes were closed or the user deleted
+     * before the check, the like is taken back here.
+     */
+    private boolean addLikeOfPresentUser(long filmId, long userId) {
+        if (!filmStorage.addLikeInStorage(filmId, userId)) {
+            return false;
+        }
+        if (closedLikers.contains(userId) || userService.getExistingUserIds(List.of(userId)).isEmpty()) {
+            filmStorage.removeLikeFromStorage(filmId, userId);
+            throw new NotFoundException(userId);
+        }
+        return true;
     }
 
-    public void removeLikeFromFilm(Long filmId, Long userId) {
-        Film film = filmStorage.readEntityFromStorage(filmId);
+    public List<Film> getLikedFilms(Long userId) {
         User user = userService.getUser(userId);
+        return filmStorage.readLikedFilmsFromStorage(user.getId());
+    }
 
-        Set<Long> likes = film.getLikes();
+    /**
+     * Rejects likes of the user until {@link #reopenLikesOfUser(Long)}, so none outlive its deletion.
+     */
+    public void closeLikesOfUser(Long userId) {
+        closedLikers.add(userId);
+    }
+
+    public void reopenLikesOfUser(Long userId) {
+        closedLikers.remove(userId);
+    }
+
+    public void removeLikesOfUser(Long userId) {
+        List<Film> liked = filmStorage.readLikedFilmsFromStorage(userId);
+        filmStorage.removeUserLikesFromStorage(userId);
+        liked.forEach(film -> {
+            trendingService.likeRemoved(film.getId(), userId);
+            recommendationService.likeChanged(film.getId(), userId);
+        });
+        filmsVersion.incrementAndGet();
+    }
+
+    public Set<Long> getExistingFilmIds(Collection<Long> filmIds) {
+        return filmStorage.readExistingIdsFromStorage(filmIds);
+    }
+
+    public void importLikes(long[] filmIds, long[] userIds) {
+        filmStorage.addLikesInStorage(filmIds, userIds);
+        takeBackLikesOfAbsentUsers(filmIds, userIds);
+        recommendationService.likesChanged();
+        filmsVersion.incrementAndGet();
+    }
 
-        likes.remove(userId);
-        film.setLikes(likes);
+    /**
+     * The check of {@link #addLikeOfPresentUser} for a batch of stored likes. Closed likes are looked up
+     * before the users, so a user deleted in between is caught by the lookup.
+     */
+    private void takeBackLikesOfAbsentUsers(long[] filmIds, long[] userIds) {
+        boolean[] closed = new boolean[userIds.length];
+        for (int i = 0; i < userIds.length; i++) {
+            closed[i] = closedLikers.contains(userIds[i]);
+        }
+        Set<Long> present = userService.getExistingUserIds(new LongHashSet(userIds));
+        for (int i = 0; i < userIds.length; i++) {
+            if (closed[i] || !present.contains(userIds[i])) {
+                try {
+                    filmStorage.removeLikeFromStorage(filmIds[i], userIds[i]);
+                } catch (NotFoundException ignored) {
+                    // the film was deleted after the like was stored
+                }
+            }
+        }
+    }
 
-        filmStorage.updateEntityInStorage(film);
+    public void removeLikeFromFilm(Long filmId, Long userId) {
+        User user = userService.getUser(userId);
+        if (trendingService.removeLike(filmId, user.getId(),
+                () -> filmStorage.removeLikeFromStorage(filmId, user.getId()))) {
+            recommendationService.likeChanged(filmId, user.getId());
+        }
+        filmsVersion.incrementAndGet();
     }
 }
@@ -0,0 +1,132 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.utility.LongCounter;
+import ru.yandex.practicum.filmorate.utility.LongHashSet;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ranks friends of friends by the number of mutual friends. The friend list is split into chunks of
+ * {@value #CHUNK_SIZE} that are expanded in parallel on a dedicated fork-join pool. A request visits at most
+ * {@value #MAX_VISITED_FRIENDSHIPS} friendships in total, friends with more than
+ * {@value #MAX_FRIEND_DEGREE} friends of their own are not expanded, and a user with more friends than that
+ * has only {@value #MAX_FRIEND_DEGREE} of them expanded, so popular accounts cannot make a request unbounded.
+ */
+@Service
+public class FriendSuggestionService {
+    private static final int CHUNK_SIZE = 64;
+    private static final int MAX_FRIEND_DEGREE = 10_000;
+    private static final long MAX_VISITED_FRIENDSHIPS = 1_000_000;
+
+    private final UserStorage userStorage;
+    private final ForkJoinPool pool;
+
+    public FriendSuggestionService(UserStorage userStorage) {
+        this.userStorage = userStorage;
+        this.pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    public List<User> getFriendSuggestions(Long userId, int limit) {
+        User user = userStorage.readEntityFromStorage(userId);
+        Set<Long> friends = user.getFriends();
+        long[] friendIds = friends instanceof LongHashSet set ? set.toLongArray(MAX_FRIEND_DEGREE)
+                : friends.stream().limit(MAX_FRIEND_DEGREE).mapToLong(Long::longValue).toArray();
+        Arrays.sort(friendIds);
+
+        MutualFriendsTask task = new MutualFriendsTask(userStorage, user.getId(), friends, friendIds, 0,
+                friendIds.length, new AtomicLong(MAX_VISITED_FRIENDSHIPS));
+        LongCounter mutualFriends = friendIds.length <= CHUNK_SIZE ? task.compute() : pool.invoke(task);
+        List<Long> suggested = Arrays.stream(mutualFriends.top(limit)).boxed().toList();
+        try {
+            return userStorage.readEntitiesFromStorage(suggested);
+        } catch (NotFoundException ex) {
+            // a suggested user was deleted after being counted
+            Set<Long> existing = userStorage.readExistingIdsFromStorage(suggested);
+            return userStorage.readEntitiesFromStorage(suggested.stream().filter(existing::contains).toList());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private static final class MutualFriendsTask extends RecursiveTask<LongCounter> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient UserStorage userStorage;
+        private final long userId;
+        private final transient Set<Long> friends;
+        private final long[] friendIds;
+        private final int from;
+        private final int to;
+        private final AtomicLong budget;
+
+        private MutualFriendsTask(UserStorage userStorage, long userId, Set<Long> friends, long[] friendIds,
+                                  int from, int to, AtomicLong budget) {
+            this.userStorage = userStorage;
+            this.userId = userId;
+            this.friends = friends;
+            this.friendIds = friendIds;
+            this.from = from;
+            this.to = to;
+            this.budget = budget;
+        }
+
+        @Override
+        protected LongCounter compute() {
+            if (to - from > CHUNK_SIZE) {
+                int middle = (from + to) >>> 1;
+                MutualFriendsTask left = new MutualFriendsTask(userStorage, userId, friends, friendIds, from, middle,
+                        budget);
+                MutualFriendsTask right = new MutualFriendsTask(userStorage, userId, friends, friendIds, middle, to,
+                        budget);
+                left.fork();
+                LongCounter counts = right.compute();
+                LongCounter leftCounts = left.join();
+                if (leftCounts.size() > counts.size()) {
+                    leftCounts.addAll(counts);
+                    return leftCounts;
+                }
+                counts.addAll(leftCounts);
+                return counts;
+            }
+
+            LongCounter counts = new LongCounter();
+            for (int i = from; i < to && budget.get() > 0; i++) {
+                Set<Long> friendsOfFriend;
+                try {
+                    friendsOfFriend = userStorage.readEntityFromStorage(friendIds[i]).getFriends();
+                } catch (NotFoundException ex) {
+                    continue;
+                }
+                int degree = friendsOfFriend.size();
+                if (degree > MAX_FRIEND_DEGREE || budget.addAndGet(-degree) < 0) {
+                    continue;
+                }
+                if (friendsOfFriend instanceof LongHashSet set) {
+                    set.forEachLong(candidate -> count(counts, candidate));
+                } else {
+                    friendsOfFriend.forEach(candidate -> count(counts, candidate));
+                }
+            }
+            return counts;
+        }
+
+        private void count(LongCounter counts, long candidate) {
+            if (candidate != userId && !friends.contains(candidate)) {
+                counts.add(candidate, 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.utility.CacheLoads;
+import ru.yandex.practicum.filmorate.utility.LongCounter;
+import ru.yandex.practicum.filmorate.utility.LongHashSet;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * User-based collaborative filtering. The {@value #NEIGHBOURS} users sharing the most likes with a user are
+ * found through the liked films index and kept per user until a like changes an overlap they were ranked by
+ * or the entry expires, so a request only merges the liked films of those neighbours. Films liked by more
+ * than {@value #MAX_LIKERS_PER_FILM} users say little about taste and are left out of the overlap.
+ * A like change only stamps its film in a table of {@value #FILM_VERSION_SLOTS} versions; cached neighbours
+ * are checked against the films they were ranked by when they are read, so writes never walk the cache.
+ */
+@Service
+public class RecommendationService {
+    private static final int NEIGHBOURS = 20;
+    private static final int MAX_SCANNED_LIKES = 500;
+    private static final int MAX_LIKERS_PER_FILM = 10_000;
+    private static final int MAX_CACHED_USERS = 100_000;
+    private static final int MAX_FALLBACK_FILMS = 1_000;
+    private static final Duration NEIGHBOURS_TTL = Duration.ofMinutes(10);
+    private static final int FILM_VERSION_SLOTS = 1 << 16;
+
+    private final FilmStorage filmStorage;
+    private final UserService userService;
+    private final AsyncCache<Long, Neighbours> neighbours;
+    private final AtomicLong changes = new AtomicLong();
+    private final AtomicLongArray filmVersions = new AtomicLongArray(FILM_VERSION_SLOTS);
+
+    public RecommendationService(FilmStorage filmStorage, UserService userService) {
+        this.filmStorage = filmStorage;
+        this.userService = userService;
+        this.neighbours = Caffeine.newBuilder()
+                .maximumSize(MAX_CACHED_USERS)
+                .expireAfterWrite(NEIGHBOURS_TTL)
+                .buildAsync();
+    }
+
+    public List<Film> getRecommendations(Long userId, int count) {
+        User user = userService.getUser(userId);
+        List<Film> liked = filmStorage.readLikedFilmsFromStorage(user.getId());
+        LongHashSet likedIds = new LongHashSet(liked.stream().map(Film::getId).toList());
+        Neighbours similar = CacheLoads.get(neighbours, user.getId(), this::loadNeighbours);
+        if (!isCurrent(similar)) {
+            neighbours.synchronous().invalidate(user.getId());
+            similar = CacheLoads.get(neighbours, user.getId(), this::loadNeighbours);
+        }
+
+        LongCounter scores = new LongCounter();
+        Map<Long, Film> candidates = new HashMap<>();
+        for (int i = 0; i < similar.userIds().length; i++) {
+            for (Film film : filmStorage.readLikedFilmsFromStorage(similar.userIds()[i])) {
+                if (!likedIds.contains(film.getId().longValue())) {
+                    scores.add(film.getId(), similar.overlaps()[i]);
+                    candidates.putIfAbsent(film.getId(), film);
+                }
+            }
+        }
+
+        List<Film> recommended = new ArrayList<>(count);
+        for (long filmId : scores.top(count)) {
+            recommended.add(candidates.get(filmId));
+        }
+        if (recommended.size() < count) {
+            int fallback = Math.min(count - recommended.size() + likedIds.size() + candidates.size(),
+                    count + MAX_FALLBACK_FILMS);
+            for (Film film : filmStorage.readTopRatedFilmsFromStorage(fallback)) {
+                if (recommended.size() == count) {
+                    break;
+                }
+                if (!likedIds.contains(film.getId().longValue()) && !candidates.containsKey(film.getId())) {
+                    recommended.add(film);
+                }
+            }
+        }
+        return recommended;
+    }
+
+    /**
+     * Drops the user's own neighbours and stamps the film, so neighbours of other likers that were ranked
+     * through it are recomputed on their next read. A neighbour search still in flight for the user is
+     * dropped too, so it cannot put back what it read before the change.
+     */
+    public void likeChanged(long filmId, long userId) {
+        neighbours.synchronous().invalidate(userId);
+        stamp(filmId);
+    }
+
+    /**
+     * Stamps a deleted film, so neighbours ranked through it are recomputed on their next read.
+     */
+    public void filmRemoved(long filmId) {
+        stamp(filmId);
+    }
+
+    /**
+     * Drops every cached neighbour list, for changes too wide to follow film by film such as a bulk import.
+     */
+    public void likesChanged() {
+        neighbours.synchronous().invalidateAll();
+    }
+
+    private void stamp(long filmId) {
+        filmVersions.set(versionSlot(filmId), changes.incrementAndGet());
+    }
+
+    /**
+     * Whether none of the films the neighbours were ranked by has changed since. Slots are shared between
+     * films, so a change of another film can only cause a needless recompute.
+     */
+    private boolean isCurrent(Neighbours similar) {
+        for (long filmId : similar.rankedBy()) {
+            if (filmVersions.get(versionSlot(filmId)) > similar.version()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Takes the version before reading the likes, so a change made during the search is newer than it.
+     */
+    private Neighbours loadNeighbours(long userId) {
+        long version = changes.get();
+        return findNeighbours(userId, filmStorage.readLikedFilmsFromStorage(userId), version);
+    }
+
+    private static Neighbours findNeighbours(long userId, List<Film> liked, long version) {
+        LongCounter overlaps = new LongCounter();
+        List<Film> scanned = liked.subList(0, Math.min(liked.size(), MAX_SCANNED_LIKES));
+        long[] rankedBy = new long[scanned.size()];
+        for (int index = 0; index < rankedBy.length; index++) {
+            Film film = scanned.get(index);
+            rankedBy[index] = film.getId();
+            Set<Long> likers = film.getLikes();
+            if (likers.size() > MAX_LIKERS_PER_FILM) {
+                continue;
+            }
+            if (likers instanceof LongHashSet set) {
+                set.forEachLong(likerId -> {
+                    if (likerId != userId) {
+                        overlaps.add(likerId, 1);
+                    }
+                });
+            } else {
+                for (Long likerId : likers) {
+                    if (likerId != userId) {
+                        overlaps.add(likerId, 1);
+                    }
+                }
+            }
+        }
+        long[] userIds = overlaps.top(NEIGHBOURS);
+        int[] counts = new int[userIds.length];
+        for (int i = 0; i < userIds.length; i++) {
+            counts[i] = overlaps.get(userIds[i]);
+        }
+        return new Neighbours(userIds, counts, rankedBy, version);
+    }
+
+    private static int versionSlot(long filmId) {
+        return Long.hashCode(filmId) & (FILM_VERSION_SLOTS - 1);
+    }
+
+    private record Neighbours(long[] userIds, int[] overlaps, long[] rankedBy, long version) {
+    }
+}
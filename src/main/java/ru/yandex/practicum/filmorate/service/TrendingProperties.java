@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.trending")
+public class TrendingProperties {
+    /**
+     * Windows {@code /films/trending} can rank by, each a whole number of minutes.
+     */
+    private List<Duration> windows = List.of(Duration.ofHours(1), Duration.ofHours(24), Duration.ofDays(7));
+}
@@ -0,0 +1,354 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.BadRequestException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.utility.Durations;
+import ru.yandex.practicum.filmorate.utility.LongHashSet;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Ranks films by the likes they received within a recent window. Every film liked within the longest
+ * window keeps the minutes it was liked in, oldest first, with the users who liked it in each minute,
+ * and a running like count for every window. A film's likes only change under its lock stripe, together
+ * with the storage change that caused them, so a concurrent like and unlike are counted in the order the
+ * storage applied them. Each window ranks its films in a {@link FilmPopularityIndex}, so a request reads
+ * only the films it returns. Once a minute a background task subtracts the minutes that have slid out of
+ * each window.
+ * Only likes made through {@link FilmService} are counted: imported likes carry no time.
+ */
+@Slf4j
+@Service
+@EnableConfigurationProperties(TrendingProperties.class)
+public class TrendingService {
+    private static final long BUCKET_MILLIS = Duration.ofMinutes(1).toMillis();
+    private static final int STRIPES = 64;
+
+    private final FilmStorage filmStorage;
+    private final Clock clock;
+    private final List<Window> windows;
+    private final Map<Long, FilmTrend> films = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public TrendingService(FilmStorage filmStorage, TrendingProperties properties) {
+        this(filmStorage, properties, Clock.systemUTC());
+    }
+
+    public TrendingService(FilmStorage filmStorage, TrendingProperties properties, Clock clock) {
+        this.filmStorage = filmStorage;
+        this.clock = clock;
+        this.windows = properties.getWindows().stream()
+                .distinct()
+                .sorted()
+                .map(Window::new)
+                .toList();
+        if (windows.isEmpty()) {
+            throw new IllegalArgumentException("At least one trending window is required");
+        }
+        Arrays.setAll(stripes, index -> new ReentrantLock());
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "filmorate-trending");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long untilNextMinute = BUCKET_MILLIS - clock.millis() % BUCKET_MILLIS;
+        scheduler.scheduleAtFixedRate(this::expireQuietly, untilNextMinute, BUCKET_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * @param window one of the tracked windows, such as {@code 24h} or {@code PT1H}
+     */
+    public List<Film> getTrendingFilms(String window, int count) {
+        Duration duration = Durations.parse("window", window);
+        Window tracked = windows.stream()
+                .filter(candidate -> candidate.duration.equals(duration))
+                .findFirst()
+                .orElseThrow(() -> new BadRequestException("Window " + window + " is not tracked, use one of "
+                        + windows.stream().map(candidate -> candidate.duration).toList()));
+        List<Long> top = tracked.ranking.top(count);
+        try {
+            return filmStorage.readEntitiesFromStorage(top);
+        } catch (NotFoundException ex) {
+            // a film was deleted after it was liked
+            Set<Long> existing = filmStorage.readExistingIdsFromStorage(top);
+            return filmStorage.readEntitiesFromStorage(top.stream().filter(existing::contains).toList());
+        }
+    }
+
+    /**
+     * Adds the like to the storage under the film's lock stripe and counts it if the storage added it.
+     *
+     * @return the result of {@code addToStorage}
+     */
+    public boolean addLike(long filmId, long userId, BooleanSupplier addToStorage) {
+        ReentrantLock lock = stripe(filmId);
+        lock.lock();
+        try {
+            if (!addToStorage.getAsBoolean()) {
+                return false;
+            }
+            long now = minuteNow();
+            FilmTrend trend = films.computeIfAbsent(filmId, id -> new FilmTrend(windows.size(), now));
+            trim(trend, now);
+            trend.add(userId);
+            for (int index = 0; index < windows.size(); index++) {
+                trend.counts[index]++;
+            }
+            publish(filmId, trend);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the like from the storage under the film's lock stripe and withdraws it if the storage
+     * removed it.
+     *
+     * @return the result of {@code removeFromStorage}
+     */
+    public boolean removeLike(long filmId, long userId, BooleanSupplier removeFromStorage) {
+        ReentrantLock lock = stripe(filmId);
+        lock.lock();
+        try {
+            if (!removeFromStorage.getAsBoolean()) {
+                return false;
+            }
+            withdraw(filmId, userId);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Withdraws a like the storage has already removed.
+     */
+    public void likeRemoved(long filmId, long userId) {
+        ReentrantLock lock = stripe(filmId);
+        lock.lock();
+        try {
+            withdraw(filmId, userId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the film from the storage under its lock stripe and forgets its likes, so a concurrent like
+     * is either deleted with the film or rejected by the storage.
+     */
+    public void removeFilm(long filmId, Runnable deleteFromStorage) {
+        ReentrantLock lock = stripe(filmId);
+        lock.lock();
+        try {
+            deleteFromStorage.run();
+            films.remove(filmId);
+            windows.forEach(window -> window.ranking.remove(filmId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Slides the windows of every film up to the current minute. Runs every minute in the background.
+     */
+    public void expire() {
+        long now = minuteNow();
+        for (Long filmId : films.keySet()) {
+            ReentrantLock lock = stripe(filmId);
+            lock.lock();
+            try {
+                FilmTrend trend = films.get(filmId);
+                if (trend != null && trim(trend, now)) {
+                    publish(filmId, trend);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void withdraw(long filmId, long userId) {
+        FilmTrend trend = films.get(filmId);
+        if (trend == null) {
+            return;
+        }
+        trim(trend, minuteNow());
+        long minute = trend.remove(userId);
+        if (minute == Long.MIN_VALUE) {
+            // liked before the longest window or before it could be counted
+            publish(filmId, trend);
+            return;
+        }
+        for (int index = 0; index < windows.size(); index++) {
+            if (minute >= trend.currentMinute - windows.get(index).minutes + 1) {
+                trend.counts[index]--;
+            }
+        }
+        publish(filmId, trend);
+    }
+
+    /**
+     * Subtracts the minutes that slid out of each window since the film was last trimmed and forgets the
+     * ones older than the longest window.
+     *
+     * @return whether the film's counts could have changed
+     */
+    private boolean trim(FilmTrend trend, long now) {
+        if (now <= trend.currentMinute) {
+            return false;
+        }
+        for (int index = 0; index < windows.size(); index++) {
+            int minutes = windows.get(index).minutes;
+            trend.counts[index] -= trend.likesBetween(trend.currentMinute - minutes + 1, now - minutes + 1);
+        }
+        trend.currentMinute = now;
+        trend.dropBefore(now - windows.get(windows.size() - 1).minutes + 1);
+        return true;
+    }
+
+    /**
+     * Moves the film to its counts in every window ranking. Windows are ordered by length, so the film is
+     * counted nowhere once the longest window drops it.
+     */
+    private void publish(long filmId, FilmTrend trend) {
+        for (int index = 0; index < windows.size(); index++) {
+            FilmPopularityIndex ranking = windows.get(index).ranking;
+            if (trend.counts[index] > 0) {
+                ranking.update(filmId, trend.counts[index]);
+            } else {
+                ranking.remove(filmId);
+            }
+        }
+        if (trend.counts[windows.size() - 1] == 0) {
+            films.remove(filmId);
+        }
+    }
+
+    private void expireQuietly() {
+        try {
+            expire();
+        } catch (RuntimeException ex) {
+            log.error("Failed to expire trending likes", ex);
+        }
+    }
+
+    private long minuteNow() {
+        return Math.floorDiv(clock.millis(), BUCKET_MILLIS);
+    }
+
+    private ReentrantLock stripe(long filmId) {
+        return stripes[Long.hashCode(filmId) & (STRIPES - 1)];
+    }
+
+    private static final class Window {
+        private final Duration duration;
+        private final int minutes;
+        private final FilmPopularityIndex ranking = new FilmPopularityIndex();
+
+        private Window(Duration duration) {
+            if (duration.isNegative() || duration.isZero() || duration.toMillis() % BUCKET_MILLIS != 0) {
+                throw new IllegalArgumentException("Trending window should be a positive number of minutes: "
+                        + duration);
+            }
+            this.duration = duration;
+            this.minutes = Math.toIntExact(duration.toMillis() / BUCKET_MILLIS);
+        }
+    }
+
+    /**
+     * Likes of one film within the longest window. Minutes are kept in {@code [first, end)} in ascending
+     * order, each with the users who liked the film in it. Guarded by the film's lock stripe.
+     */
+    private static final class FilmTrend {
+        private final int[] counts;
+        private long currentMinute;
+        private long[] minutes = new long[2];
+        private LongHashSet[] likers = new LongHashSet[2];
+        private int first;
+        private int end;
+
+        private FilmTrend(int windows, long currentMinute) {
+            this.counts = new int[windows];
+            this.currentMinute = currentMinute;
+        }
+
+        private void add(long userId) {
+            if (end > first && minutes[end - 1] == currentMinute) {
+                likers[end - 1].add(userId);
+                return;
+            }
+            if (end == minutes.length) {
+                int size = end - first;
+                int capacity = size * 2 > minutes.length ? size * 2 : minutes.length;
+                minutes = Arrays.copyOfRange(minutes, first, first + capacity);
+                likers = Arrays.copyOfRange(likers, first, first + capacity);
+                first = 0;
+                end = size;
+            }
+            minutes[end] = currentMinute;
+            likers[end] = new LongHashSet();
+            likers[end++].add(userId);
+        }
+
+        /**
+         * @return the minute the user liked the film in, or {@link Long#MIN_VALUE} if no kept minute has it
+         */
+        private long remove(long userId) {
+            for (int index = end - 1; index >= first; index--) {
+                if (likers[index].remove(userId)) {
+                    return minutes[index];
+                }
+            }
+            return Long.MIN_VALUE;
+        }
+
+        private int likesBetween(long from, long to) {
+            int likes = 0;
+            for (int index = first; index < end && minutes[index] < to; index++) {
+                if (minutes[index] >= from) {
+                    likes += likers[index].size();
+                }
+            }
+            return likes;
+        }
+
+        private void dropBefore(long minute) {
+            while (first < end && minutes[first] < minute) {
+                likers[first++] = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Deletes users together with their likes. Sits above {@link FilmService} and {@link UserService}, so
+ * neither of them has to depend on the other to cascade a deletion.
+ */
+@Service
+@AllArgsConstructor
+public class UserDeletionService {
+    private final FilmService filmService;
+    private final UserService userService;
+
+    /**
+     * Deletes the user with its friendships and likes. Likes go first, while the films they touch can still
+     * be found through the user, and new likes of the user are rejected until it is gone.
+     */
+    public void deleteUser(Long userId) {
+        userService.getUser(userId);
+        filmService.closeLikesOfUser(userId);
+        try {
+            filmService.removeLikesOfUser(userId);
+            userService.deleteUser(userId);
+        } finally {
+            filmService.reopenLikesOfUser(userId);
+        }
+    }
+}
@@ -2,61 +2,96 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
-import ru.yandex.practicum.filmorate.storage.InMemoryStorageCRUD;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.utility.LongHashSet;
 
-import java.util.HashSet;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Service
 @AllArgsConstructor
 public class UserService {
-    private final InMemoryStorageCRUD<User> userStorage;
+    private final UserStorage userStorage;
 
     public User createUser(User user) {
         return userStorage.createEntityInStorage(user);
     }
 
+    public List<User> importUsers(List<User> users) {
+        return userStorage.createEntitiesInStorage(users);
+    }
+
     public User updateUser(User user) {
         return userStorage.updateEntityInStorage(user);
     }
 
+    /**
+     * Also removes the user from the friends of others. Likes of the user are removed by
+     * {@link UserDeletionService#deleteUser(Long)}.
+     */
+    public void deleteUser(Long userId) {
+        userStorage.deleteEntityFromStorage(userId);
+    }
+
     public List<User> getUsers() {
         return userStorage.readAllEntityFromStorage();
     }
 
+    public List<User> getUsersPage(Long afterId, int limit) {
+        return userStorage.readEntitiesPageFromStorage(afterId, limit);
+    }
+
     public User getUser(Long id) {
         return userStorage.readEntityFromStorage(id);
     }
 
+    public User getUserByLogin(String login) {
+        return userStorage.readUserByLoginFromStorage(login);
+    }
+
+    public User getUserByEmail(String email) {
+        return userStorage.readUserByEmailFromStorage(email);
+    }
+
     public void addFriend(Long userId, Long friendId) {
-        userStorage.readEntityFromStorage(userId).getFriends().add(friendId);
-        userStorage.readEntityFromStorage(friendId).getFriends().add(userId);
+        userStorage.addFriendInStorage(userId, friendId);
+    }
+
+    public Set<Long> getExistingUserIds(Collection<Long> userIds) {
+        return userStorage.readExistingIdsFromStorage(userIds);
+    }
+
+    public void importFriendships(long[] userIds, long[] friendIds) {
+        userStorage.addFriendsInStorage(userIds, friendIds);
     }
 
     public void removeFriend(Long userId, Long friendId) {
-       userStorage.readEntityFromStorage(userId).getFriends().remove(friendId);
-       userStorage.readEntityFromStorage(friendId).getFriends().remove(userId);
+        userStorage.removeFriendFromStorage(userId, friendId);
     }
 
     public List<User> getCommonFriends(Long userId, Long otherUserId) {
         User user = userStorage.readEntityFromStorage(userId);
         User otherUser = userStorage.readEntityFromStorage(otherUserId);
 
-        Set<Long> intersection = new HashSet<>(user.getFriends());
-        intersection.retainAll(otherUser.getFriends());
-
-        return intersection.stream()
-                .map(id -> userStorage.readEntityFromStorage(id))
-                .collect(Collectors.toList());
+        List<Long> commonFriendIds = LongHashSet.intersect(user.getFriends(), otherUser.getFriends());
+        return readExistingFriends(commonFriendIds);
     }
 
     public List<User> getUserFriends(Long userId) {
         User user = userStorage.readEntityFromStorage(userId);
-        return user.getFriends().stream()
-                .map(id -> userStorage.readEntityFromStorage(id))
-                .collect(Collectors.toList());
+        return readExistingFriends(user.getFriends());
+    }
+
+    private List<User> readExistingFriends(Collection<Long> friendIds) {
+        try {
+            return userStorage.readEntitiesFromStorage(friendIds);
+        } catch (NotFoundException ex) {
+            // a friend was deleted after the friend list was read
+            Set<Long> existing = userStorage.readExistingIdsFromStorage(friendIds);
+            return userStorage.readEntitiesFromStorage(friendIds.stream().filter(existing::contains).toList());
+        }
     }
 }
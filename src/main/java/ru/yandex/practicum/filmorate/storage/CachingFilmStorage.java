@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSearch;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class CachingFilmStorage extends CachingStorage<Film> implements FilmStorage {
+    private final FilmStorage backend;
+
+    public CachingFilmStorage(FilmStorage backend, AsyncCache<Long, Film> cache) {
+        super(backend, cache, Film::getId);
+        this.backend = backend;
+    }
+
+    @Override
+    public List<Film> readTopRatedFilmsFromStorage(int count) {
+        return backend.readTopRatedFilmsFromStorage(count);
+    }
+
+    @Override
+    public boolean addLikeInStorage(Long filmId, Long userId) {
+        try {
+            return backend.addLikeInStorage(filmId, userId);
+        } finally {
+            invalidate(filmId);
+        }
+    }
+
+    @Override
+    public void addLikesInStorage(long[] filmIds, long[] userIds) {
+        try {
+            backend.addLikesInStorage(filmIds, userIds);
+        } finally {
+            Arrays.stream(filmIds).distinct().forEach(this::invalidate);
+        }
+    }
+
+    @Override
+    public boolean removeLikeFromStorage(Long filmId, Long userId) {
+        try {
+            return backend.removeLikeFromStorage(filmId, userId);
+        } finally {
+            invalidate(filmId);
+        }
+    }
+
+    @Override
+    public List<Film> readLikedFilmsFromStorage(Long userId) {
+        return backend.readLikedFilmsFromStorage(userId);
+    }
+
+    @Override
+    public void removeUserLikesFromStorage(Long userId) {
+        List<Film> liked = backend.readLikedFilmsFromStorage(userId);
+        try {
+            backend.removeUserLikesFromStorage(userId);
+        } finally {
+            liked.forEach(film -> invalidate(film.getId()));
+        }
+    }
+
+    @Override
+    public List<Film> searchFilmsInStorage(FilmSearch search) {
+        return backend.searchFilmsInStorage(search);
+    }
+
+    @Override
+    public long countLikesInStorage() {
+        return backend.countLikesInStorage();
+    }
+}
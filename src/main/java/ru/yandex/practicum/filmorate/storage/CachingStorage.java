@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import ru.yandex.practicum.filmorate.utility.CacheLoads;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Read-through cache in front of another storage. Concurrent misses for one id wait for a single load,
+ * and every write goes to the backend first and then drops the cached entity, so a load that raced
+ * with the write is discarded rather than left stale. Loads run outside the cache's locks, see {@link CacheLoads}.
+ */
+public abstract class CachingStorage<T> implements InMemoryStorageCRUD<T> {
+    private final InMemoryStorageCRUD<T> backend;
+    private final AsyncCache<Long, T> cache;
+    private final Function<T, Long> idOf;
+
+    protected CachingStorage(InMemoryStorageCRUD<T> backend, AsyncCache<Long, T> cache, Function<T, Long> idOf) {
+        this.backend = backend;
+        this.cache = cache;
+        this.idOf = idOf;
+    }
+
+    public Cache<Long, T> getCache() {
+        return cache.synchronous();
+    }
+
+    @Override
+    public T createEntityInStorage(T entity) {
+        return backend.createEntityInStorage(entity);
+    }
+
+    @Override
+    public List<T> createEntitiesInStorage(List<T> entities) {
+        return backend.createEntitiesInStorage(entities);
+    }
+
+    @Override
+    public void deleteEntityFromStorage(Long id) {
+        try {
+            backend.deleteEntityFromStorage(id);
+        } finally {
+            cache.synchronous().invalidate(id);
+        }
+    }
+
+    @Override
+    public T readEntityFromStorage(Long id) {
+        return CacheLoads.get(cache, id, backend::readEntityFromStorage);
+    }
+
+    @Override
+    public List<T> readEntitiesFromStorage(Collection<Long> ids) {
+        Map<Long, T> found = CacheLoads.getAll(cache, ids, missing -> {
+            Map<Long, T> loaded = new HashMap<>();
+            List<Long> inRequestOrder = ids.stream().filter(missing::contains).distinct().toList();
+            backend.readEntitiesFromStorage(inRequestOrder)
+                    .forEach(entity -> loaded.put(idOf.apply(entity), entity));
+            return loaded;
+        });
+        List<T> entities = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            entities.add(found.get(id));
+        }
+        return entities;
+    }
+
+    @Override
+    public T updateEntityInStorage(T entity) {
+        Long id = idOf.apply(entity);
+        try {
+            return backend.updateEntityInStorage(entity);
+        } finally {
+            cache.synchronous().invalidate(id);
+        }
+    }
+
+    @Override
+    public List<T> readAllEntityFromStorage() {
+        return backend.readAllEntityFromStorage();
+    }
+
+    @Override
+    public List<T> readEntitiesPageFromStorage(Long afterId, int limit) {
+        return backend.readEntitiesPageFromStorage(afterId, limit);
+    }
+
+    @Override
+    public long countEntitiesInStorage() {
+        return backend.countEntitiesInStorage();
+    }
+
+    @Override
+    public Set<Long> readExistingIdsFromStorage(Collection<Long> ids) {
+        return backend.readExistingIdsFromStorage(ids);
+    }
+
+    protected void invalidate(Long id) {
+        cache.synchronous().invalidate(id);
+    }
+}
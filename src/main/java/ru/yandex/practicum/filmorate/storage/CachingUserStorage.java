@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+public class CachingUserStorage extends CachingStorage<User> implements UserStorage {
+    private final UserStorage backend;
+
+    public CachingUserStorage(UserStorage backend, AsyncCache<Long, User> cache) {
+        super(backend, cache, User::getId);
+        this.backend = backend;
+    }
+
+    /**
+     * The backend drops the user from its friends' lists, so those friends are dropped from the cache too.
+     */
+    @Override
+    public void deleteEntityFromStorage(Long id) {
+        Set<Long> friends = backend.readEntityFromStorage(id).getFriends();
+        try {
+            super.deleteEntityFromStorage(id);
+        } finally {
+            friends.forEach(this::invalidate);
+        }
+    }
+
+    @Override
+    public void addFriendInStorage(Long userId, Long friendId) {
+        try {
+            backend.addFriendInStorage(userId, friendId);
+        } finally {
+            invalidate(userId);
+            invalidate(friendId);
+        }
+    }
+
+    @Override
+    public void addFriendsInStorage(long[] userIds, long[] friendIds) {
+        try {
+            backend.addFriendsInStorage(userIds, friendIds);
+        } finally {
+            LongStream.concat(Arrays.stream(userIds), Arrays.stream(friendIds)).distinct().forEach(this::invalidate);
+        }
+    }
+
+    @Override
+    public void removeFriendFromStorage(Long userId, Long friendId) {
+        try {
+            backend.removeFriendFromStorage(userId, friendId);
+        } finally {
+            invalidate(userId);
+            invalidate(friendId);
+        }
+    }
+
+    @Override
+    public long countFriendshipsInStorage() {
+        return backend.countFriendshipsInStorage();
+    }
+
+    @Override
+    public User readUserByLoginFromStorage(String login) {
+        return backend.readUserByLoginFromStorage(login);
+    }
+
+    @Override
+    public User readUserByEmailFromStorage(String email) {
+        return backend.readUserByEmailFromStorage(email);
+    }
+}
@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+public class FilmPopularityIndex {
+    private static final Comparator<Rank> RANK_ORDER = Comparator.comparingInt(Rank::likes)
+            .reversed()
+            .thenComparingLong(Rank::filmId);
+
+    private final NavigableSet<Rank> ranking;
+    private final Map<Long, Rank> ranks;
+
+    public FilmPopularityIndex() {
+        this.ranking = new ConcurrentSkipListSet<>(RANK_ORDER);
+        this.ranks = new ConcurrentHashMap<>();
+    }
+
+    public void add(Long filmId, int likes) {
+        Rank rank = new Rank(filmId, likes);
+        ranks.put(filmId, rank);
+        ranking.add(rank);
+    }
+
+    public void update(Long filmId, int likes) {
+        Rank current = ranks.get(filmId);
+        if (current != null && current.likes() == likes) {
+            return;
+        }
+        if (current != null) {
+            ranking.remove(current);
+        }
+        add(filmId, likes);
+    }
+
+    public void remove(Long filmId) {
+        Rank current = ranks.remove(filmId);
+        if (current != null) {
+            ranking.remove(current);
+        }
+    }
+
+    public List<Long> top(int count) {
+        List<Long> top = new ArrayList<>(Math.min(count, ranks.size()));
+        Iterator<Rank> iterator = ranking.iterator();
+        while (iterator.hasNext() && top.size() < count) {
+            top.add(iterator.next().filmId());
+        }
+        return top;
+    }
+
+    private record Rank(long filmId, int likes) {
+    }
+}
@@ -0,0 +1,277 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSearch;
+import ru.yandex.practicum.filmorate.utility.LongHashSet;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+import java.util.function.LongFunction;
+
+/**
+ * Secondary indexes behind film search: release epoch days and durations in navigable maps for ranges,
+ * lower-cased names in a sorted map for prefixes and in a trigram index for substrings. A search takes its
+ * candidates from the most selective index its criteria allow and checks the rest of the criteria on those
+ * candidates only. Films without a release date are kept in a set of their own and come after all dated films
+ * when sorted by date. Changes are serialized by a lock, searches read without it.
+ */
+public class FilmSearchIndex {
+    private static final int GRAM = 3;
+    private static final Comparator<Hit> BY_LIKES = Comparator.comparingInt(Hit::likes).reversed()
+            .thenComparingLong(hit -> hit.film().getId());
+    private static final Comparator<Hit> BY_RELEASE_DATE = Comparator
+            .comparing((Hit hit) -> hit.film().getReleaseDate(), Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparingLong(hit -> hit.film().getId());
+
+    private final NavigableMap<Long, LongHashSet> releaseDays = new ConcurrentSkipListMap<>();
+    private final NavigableMap<Long, LongHashSet> durations = new ConcurrentSkipListMap<>();
+    private final NavigableMap<String, LongHashSet> names = new ConcurrentSkipListMap<>();
+    private final Map<Long, LongHashSet> trigrams = new ConcurrentHashMap<>();
+    private final LongHashSet undated = new LongHashSet();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    public void add(Film film) {
+        update(null, film);
+    }
+
+    public void remove(Film film) {
+        update(film, null);
+    }
+
+    /**
+     * Re-indexes the attributes that differ between the two versions of a film; either may be {@code null}.
+     */
+    public void update(Film before, Film after) {
+        long id = (after != null ? after : before).getId();
+        writeLock.lock();
+        try {
+            LocalDate releasedBefore = before == null ? null : before.getReleaseDate();
+            LocalDate releasedAfter = after == null ? null : after.getReleaseDate();
+            if (!Objects.equals(releasedBefore, releasedAfter)) {
+                if (releasedBefore != null) {
+                    unpost(releaseDays, releasedBefore.toEpochDay(), id);
+                }
+                if (releasedAfter != null) {
+                    post(releaseDays, releasedAfter.toEpochDay(), id);
+                }
+            }
+            boolean undatedBefore = before != null && releasedBefore == null;
+            boolean undatedAfter = after != null && releasedAfter == null;
+            if (undatedBefore != undatedAfter) {
+                if (undatedAfter) {
+                    undated.add(id);
+                } else {
+                    undated.remove(id);
+                }
+            }
+            Duration durationBefore = before == null ? null : before.getDuration();
+            Duration durationAfter = after == null ? null : after.getDuration();
+            if (!Objects.equals(durationBefore, durationAfter)) {
+                if (durationBefore != null) {
+                    unpost(durations, durationBefore.toSeconds(), id);
+                }
+                if (durationAfter != null) {
+                    post(durations, durationAfter.toSeconds(), id);
+                }
+            }
+            String nameBefore = before == null || before.getName() == null ? null : normalize(before.getName());
+            String nameAfter = after == null || after.getName() == null ? null : normalize(after.getName());
+            if (!Objects.equals(nameBefore, nameAfter)) {
+                LongHashSet gramsBefore = nameBefore == null ? new LongHashSet() : trigramsOf(nameBefore);
+                LongHashSet gramsAfter = nameAfter == null ? new LongHashSet() : trigramsOf(nameAfter);
+                if (nameBefore != null) {
+                    unpost(names, nameBefore, id);
+                }
+                if (nameAfter != null) {
+                    post(names, nameAfter, id);
+                }
+                gramsBefore.forEachLong(gram -> {
+                    if (!gramsAfter.contains(gram)) {
+                        unpost(trigrams, gram, id);
+                    }
+                });
+                gramsAfter.forEachLong(gram -> {
+                    if (!gramsBefore.contains(gram)) {
+                        post(trigrams, gram, id);
+                    }
+                });
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @param films    resolves an id to the current film, or {@code null} once it is gone
+     * @param topRated serves a search without filters sorted by likes
+     */
+    public List<Film> search(FilmSearch search, LongFunction<Film> films, IntFunction<List<Film>> topRated) {
+        if (search.getSort() == FilmSearch.Sort.DATE && !narrowsByName(search)) {
+            return searchByReleaseDate(search, films);
+        }
+        LongHashSet candidates = candidates(search);
+        if (candidates == null) {
+            if (!search.hasFilters()) {
+                return topRated.apply(search.getLimit());
+            }
+            candidates = union(releaseDays);
+            undated.forEachLong(candidates::add);
+        }
+        Comparator<Hit> order = search.getSort() == FilmSearch.Sort.LIKES ? BY_LIKES : BY_RELEASE_DATE;
+        PriorityQueue<Hit> best = new PriorityQueue<>(order.reversed());
+        candidates.forEachLong(id -> {
+            Film film = films.apply(id);
+            if (film != null && search.matches(film)) {
+                best.add(new Hit(film, film.getLikes().size()));
+                if (best.size() > search.getLimit()) {
+                    best.poll();
+                }
+            }
+        });
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(order);
+        return hits.stream().map(Hit::film).toList();
+    }
+
+    /**
+     * Walks release days from the newest, so it stops as soon as the limit is reached. Without a date range the
+     * films without a release date follow the oldest day.
+     */
+    private List<Film> searchByReleaseDate(FilmSearch search, LongFunction<Film> films) {
+        long from = search.getReleasedFrom() == null ? Long.MIN_VALUE : search.getReleasedFrom().toEpochDay();
+        long to = search.getReleasedTo() == null ? Long.MAX_VALUE : search.getReleasedTo().toEpochDay();
+        List<Film> found = new ArrayList<>();
+        if (from > to) {
+            return found;
+        }
+        for (LongHashSet ids : releaseDays.subMap(from, true, to, true).descendingMap().values()) {
+            if (collectInIdOrder(ids, search, films, found)) {
+                return found;
+            }
+        }
+        if (search.getReleasedFrom() == null && search.getReleasedTo() == null) {
+            collectInIdOrder(undated, search, films, found);
+        }
+        return found;
+    }
+
+    /**
+     * @return {@code true} once the limit is reached
+     */
+    private static boolean collectInIdOrder(LongHashSet ids, FilmSearch search, LongFunction<Film> films,
+                                            List<Film> found) {
+        long[] sorted = ids.toLongArray();
+        Arrays.sort(sorted);
+        for (long id : sorted) {
+            Film film = films.apply(id);
+            if (film != null && search.matches(film)) {
+                found.add(film);
+                if (found.size() == search.getLimit()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return ids that may match, from the most selective index available, or {@code null} if none applies
+     */
+    private LongHashSet candidates(FilmSearch search) {
+        if (search.getName() != null && search.getName().length() >= GRAM) {
+            return withAllTrigrams(normalize(search.getName()));
+        }
+        if (search.getNamePrefix() != null) {
+            String prefix = normalize(search.getNamePrefix());
+            return union(names.subMap(prefix, true, prefix + Character.MAX_VALUE, true));
+        }
+        if (search.getReleasedFrom() != null || search.getReleasedTo() != null) {
+            long from = search.getReleasedFrom() == null ? Long.MIN_VALUE : search.getReleasedFrom().toEpochDay();
+            long to = search.getReleasedTo() == null ? Long.MAX_VALUE : search.getReleasedTo().toEpochDay();
+            return from > to ? new LongHashSet() : union(releaseDays.subMap(from, true, to, true));
+        }
+        if (search.getMinDuration() != null || search.getMaxDuration() != null) {
+            long from = search.getMinDuration() == null ? Long.MIN_VALUE : search.getMinDuration().toSeconds();
+            long to = search.getMaxDuration() == null ? Long.MAX_VALUE : search.getMaxDuration().toSeconds();
+            return from > to ? new LongHashSet() : union(durations.subMap(from, true, to, true));
+        }
+        return null;
+    }
+
+    private LongHashSet withAllTrigrams(String name) {
+        List<LongHashSet> postings = new ArrayList<>();
+        LongHashSet grams = trigramsOf(name);
+        for (long gram : grams.toLongArray()) {
+            LongHashSet posting = trigrams.get(gram);
+            if (posting == null) {
+                return new LongHashSet();
+            }
+            postings.add(posting);
+        }
+        postings.sort(Comparator.comparingInt(LongHashSet::size));
+        LongHashSet found = new LongHashSet();
+        postings.get(0).forEachLong(id -> {
+            for (int i = 1; i < postings.size(); i++) {
+                if (!postings.get(i).contains(id)) {
+                    return;
+                }
+            }
+            found.add(id);
+        });
+        return found;
+    }
+
+    private static boolean narrowsByName(FilmSearch search) {
+        return (search.getName() != null && search.getName().length() >= GRAM) || search.getNamePrefix() != null;
+    }
+
+    private static LongHashSet union(Map<?, LongHashSet> postings) {
+        LongHashSet ids = new LongHashSet();
+        for (LongHashSet posting : postings.values()) {
+            posting.forEachLong(ids::add);
+        }
+        return ids;
+    }
+
+    private static LongHashSet trigramsOf(String name) {
+        LongHashSet grams = new LongHashSet();
+        for (int i = 0; i + GRAM <= name.length(); i++) {
+            grams.add((long) name.charAt(i) << 32 | (long) name.charAt(i + 1) << 16 | name.charAt(i + 2));
+        }
+        return grams;
+    }
+
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static <K> void post(Map<K, LongHashSet> index, K key, long id) {
+        index.computeIfAbsent(key, ignored -> new LongHashSet()).add(id);
+    }
+
+    private static <K> void unpost(Map<K, LongHashSet> index, K key, long id) {
+        LongHashSet ids = index.get(key);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            index.remove(key, ids);
+        }
+    }
+
+    /**
+     * A matching film with its like count taken once, as likes keep changing while results are ranked.
+     */
+    private record Hit(Film film, int likes) {
+    }
+}
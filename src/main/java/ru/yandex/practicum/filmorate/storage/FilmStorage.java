@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSearch;
+
+import java.util.List;
+
+public interface FilmStorage extends InMemoryStorageCRUD<Film> {
+    List<Film> readTopRatedFilmsFromStorage(int count);
+
+    /**
+     * @return whether the like is new, {@code false} if the user has already liked the film
+     */
+    boolean addLikeInStorage(Long filmId, Long userId);
+
+    /**
+     * @return whether there was such a like to remove
+     */
+    boolean removeLikeFromStorage(Long filmId, Long userId);
+
+    /**
+     * Adds the likes {@code userIds[i]} to {@code filmIds[i]}. Likes of films that do not exist are skipped.
+     */
+    void addLikesInStorage(long[] filmIds, long[] userIds);
+
+    /**
+     * Films the user has liked, ordered by id. Served from a reverse index, so the cost follows the user's likes.
+     */
+    List<Film> readLikedFilmsFromStorage(Long userId);
+
+    /**
+     * Withdraws every like of the user, touching only the films the user has liked.
+     */
+    void removeUserLikesFromStorage(Long userId);
+
+    /**
+     * Films matching the search in its order, at most {@link FilmSearch#getLimit()} of them.
+     */
+    List<Film> searchFilmsInStorage(FilmSearch search);
+
+    long countLikesInStorage();
+}
@@ -1,80 +1,384 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.utility.Utility;
+import ru.yandex.practicum.filmorate.model.FilmSearch;
+import ru.yandex.practicum.filmorate.utility.LongHashSet;
+import ru.yandex.practicum.filmorate.utility.IdGenerator;
+import ru.yandex.practicum.filmorate.utility.SequentialIdGenerator;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Component
-public class InMemoryFilmStorage implements InMemoryStorageCRUD<Film> {
+@Profile("!jdbc & !offheap")
+public class InMemoryFilmStorage implements FilmStorage {
     private final Map<Long, Film> filmStorage;
+    private final NavigableSet<Long> filmIds;
+    private final Map<Long, LongHashSet> likedFilms;
+    private final FilmPopularityIndex popularityIndex;
+    private final FilmSearchIndex searchIndex;
+    private final IdGenerator idGenerator;
+    private final AtomicLong totalLikes;
+    private volatile StorageJournal journal;
 
     public InMemoryFilmStorage() {
-        this.filmStorage = new HashMap<>();
+        this(new SequentialIdGenerator());
+    }
+
+    public InMemoryFilmStorage(IdGenerator idGenerator) {
+        this.filmStorage = new ConcurrentHashMap<>();
+        this.filmIds = new ConcurrentSkipListSet<>();
+        this.likedFilms = new ConcurrentHashMap<>();
+        this.popularityIndex = new FilmPopularityIndex();
+        this.searchIndex = new FilmSearchIndex();
+        this.idGenerator = idGenerator;
+        this.totalLikes = new AtomicLong();
+        this.journal = StorageJournal.NONE;
+    }
+
+    public void setJournal(StorageJournal journal) {
+        this.journal = journal;
     }
 
     @Override
     public Film createEntityInStorage(Film entity) {
-        Long id = Utility.getIdForEntity();
+        Film created = insert(entity);
+        log.info("Film created: {}", created);
+        return created;
+    }
 
-        Film toCreate = Film.builder()
-                .id(id)
-                .name(entity.getName())
-                .description(entity.getDescription())
-                .releaseDate(entity.getReleaseDate())
-                .duration(entity.getDuration())
-                .likes(new HashSet<>())
-                .build();
-        filmStorage.put(id, toCreate);
-        log.info("Film created: {}", toCreate);
-        return toCreate;
+    @Override
+    public List<Film> createEntitiesInStorage(List<Film> entities) {
+        List<Film> created = new ArrayList<>(entities.size());
+        for (Film entity : entities) {
+            created.add(insert(entity));
+        }
+        log.info("Films created: {}", created.size());
+        return created;
+    }
+
+    public void restoreEntityInStorage(Film entity) {
+        Long id = entity.getId();
+        filmStorage.compute(id, (filmId, stored) -> {
+            Set<Long> likes = stored != null ? stored.getLikes() : toLongHashSet(entity.getLikes());
+            if (stored == null) {
+                popularityIndex.add(filmId, likes.size());
+                filmIds.add(filmId);
+                totalLikes.addAndGet(likes.size());
+                likes.forEach(userId -> indexLike(filmId, userId));
+            }
+            Film restored = Film.builder()
+                    .id(filmId)
+                    .name(entity.getName())
+                    .description(entity.getDescription())
+                    .releaseDate(entity.getReleaseDate())
+                    .duration(entity.getDuration())
+                    .likes(likes)
+                    .build();
+            searchIndex.update(stored, restored);
+            return restored;
+        });
+        idGenerator.skipPast(id);
+    }
+
+    /**
+     * The largest id this storage has handed out, including ids of films deleted since.
+     */
+    public long readLastIdFromStorage() {
+        return idGenerator.lastId();
+    }
+
+    /**
+     * Keeps ids up to {@code id} from being handed out again, as after restoring a snapshot that no longer
+     * holds the films they belonged to.
+     */
+    public void skipIdsInStorage(long id) {
+        idGenerator.skipPast(id);
     }
 
     @Override
     public void deleteEntityFromStorage(Long id) {
-        if (filmStorage.containsKey(id)) {
-            filmStorage.remove(id);
-            log.info("Film deleted: {}", id);
-        } else {
+        boolean[] deleted = new boolean[1];
+        filmStorage.computeIfPresent(id, (filmId, stored) -> {
+            filmIds.remove(filmId);
+            popularityIndex.remove(filmId);
+            searchIndex.remove(stored);
+            totalLikes.addAndGet(-stored.getLikes().size());
+            stored.getLikes().forEach(userId -> unindexLike(filmId, userId));
+            journal.filmDeleted(filmId);
+            deleted[0] = true;
+            return null;
+        });
+        if (!deleted[0]) {
             throw new NotFoundException(id);
         }
+        log.info("Film deleted: {}", id);
     }
 
     @Override
     public Film readEntityFromStorage(Long id) {
-        if (filmStorage.containsKey(id)) {
-            return filmStorage.get(id);
-        } else {
+        Film film = filmStorage.get(id);
+        if (film == null) {
             throw new NotFoundException(id);
         }
+        return film;
+    }
+
+    @Override
+    public List<Film> readEntitiesFromStorage(Collection<Long> ids) {
+        List<Film> films = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Film film = filmStorage.get(id);
+            if (film == null) {
+                throw new NotFoundException(id);
+            }
+            films.add(film);
+        }
+        return films;
     }
 
     @Override
     public Film updateEntityInStorage(Film entity) {
-        if (filmStorage.containsKey(entity.getId())) {
+        Film updated = filmStorage.computeIfPresent(entity.getId(), (filmId, stored) -> {
             Film toUpdate = Film.builder()
-                    .id(entity.getId())
+                    .id(filmId)
                     .name(entity.getName())
                     .description(entity.getDescription())
                     .releaseDate(entity.getReleaseDate())
                     .duration(entity.getDuration())
-                    .likes(entity.getLikes())
+                    .likes(stored.getLikes())
                     .build();
-            filmStorage.put(entity.getId(), toUpdate);
-            log.info("Film updated: {}", toUpdate);
+            popularityIndex.update(filmId, toUpdate.getLikes().size());
+            searchIndex.update(stored, toUpdate);
+            journal.filmSaved(toUpdate);
             return toUpdate;
-        } else {
+        });
+        if (updated == null) {
             throw new NotFoundException(entity.getId());
         }
+        log.info("Film updated: {}", updated);
+        return updated;
     }
 
     @Override
     public List<Film> readAllEntityFromStorage() {
         return filmStorage.values().stream().collect(Collectors.toList());
     }
+
+    @Override
+    public List<Film> readTopRatedFilmsFromStorage(int count) {
+        return popularityIndex.top(count).stream()
+                .map(filmStorage::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void addLikesInStorage(long[] filmIds, long[] userIds) {
+        LongHashSet touched = new LongHashSet();
+        long added = 0;
+        int from = 0;
+        while (from < filmIds.length) {
+            long filmId = filmIds[from];
+            int to = from + 1;
+            while (to < filmIds.length && filmIds[to] == filmId) {
+                to++;
+            }
+            int runFrom = from;
+            int runTo = to;
+            int[] runAdded = new int[1];
+            filmStorage.computeIfPresent(filmId, (id, stored) -> {
+                for (int i = runFrom; i < runTo; i++) {
+                    if (stored.getLikes().add(userIds[i])) {
+                        runAdded[0]++;
+                        indexLike(id, userIds[i]);
+                        journal.likeAdded(id, userIds[i]);
+                    }
+                }
+                return stored;
+            });
+            if (runAdded[0] > 0) {
+                touched.add(filmId);
+                added += runAdded[0];
+            }
+            from = to;
+        }
+        totalLikes.addAndGet(added);
+        touched.forEachLong(filmId -> filmStorage.computeIfPresent(filmId, (id, stored) -> {
+            popularityIndex.update(id, stored.getLikes().size());
+            return stored;
+        }));
+        log.info("Likes added: {}", added);
+    }
+
+    @Override
+    public boolean addLikeInStorage(Long filmId, Long userId) {
+        boolean[] changed = new boolean[1];
+        Film film = filmStorage.computeIfPresent(filmId, (id, stored) -> {
+            if (stored.getLikes().add(userId)) {
+                changed[0] = true;
+                totalLikes.incrementAndGet();
+                indexLike(id, userId);
+                popularityIndex.update(id, stored.getLikes().size());
+                journal.likeAdded(id, userId);
+            }
+            return stored;
+        });
+        if (film == null) {
+            throw new NotFoundException(filmId);
+        }
+        log.debug("Like added: film {}, user {}", filmId, userId);
+        return changed[0];
+    }
+
+    @Override
+    public boolean removeLikeFromStorage(Long filmId, Long userId) {
+        boolean[] changed = new boolean[1];
+        Film film = filmStorage.computeIfPresent(filmId, (id, stored) -> {
+            if (stored.getLikes().remove(userId)) {
+                changed[0] = true;
+                totalLikes.decrementAndGet();
+                unindexLike(id, userId);
+                popularityIndex.update(id, stored.getLikes().size());
+                journal.likeRemoved(id, userId);
+            }
+            return stored;
+        });
+        if (film == null) {
+            throw new NotFoundException(filmId);
+        }
+        log.debug("Like removed: film {}, user {}", filmId, userId);
+        return changed[0];
+    }
+
+    @Override
+    public List<Film> readLikedFilmsFromStorage(Long userId) {
+        LongHashSet liked = likedFilms.get(userId);
+        if (liked == null) {
+            return new ArrayList<>();
+        }
+        long[] ids = liked.toLongArray();
+        Arrays.sort(ids);
+        List<Film> films = new ArrayList<>(ids.length);
+        for (long filmId : ids) {
+            Film film = filmStorage.get(filmId);
+            if (film != null) {
+                films.add(film);
+            }
+        }
+        return films;
+    }
+
+    @Override
+    public void removeUserLikesFromStorage(Long userId) {
+        LongHashSet liked = likedFilms.remove(userId);
+        if (liked == null) {
+            return;
+        }
+        int[] removed = new int[1];
+        liked.forEachLong(filmId -> filmStorage.computeIfPresent(filmId, (id, stored) -> {
+            if (stored.getLikes().remove(userId)) {
+                removed[0]++;
+                totalLikes.decrementAndGet();
+                unindexLike(id, userId);
+                popularityIndex.update(id, stored.getLikes().size());
+                journal.likeRemoved(id, userId);
+            }
+            return stored;
+        }));
+        log.info("Likes of user {} removed: {}", userId, removed[0]);
+    }
+
+    @Override
+    public List<Film> readEntitiesPageFromStorage(Long afterId, int limit) {
+        List<Film> page = new ArrayList<>(limit);
+        Iterator<Long> iterator = filmIds.tailSet(afterId == null ? 0L : afterId, false).iterator();
+        while (iterator.hasNext() && page.size() < limit) {
+            Film film = filmStorage.get(iterator.next());
+            if (film != null) {
+                page.add(film);
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public long countEntitiesInStorage() {
+        return filmStorage.size();
+    }
+
+    @Override
+    public Set<Long> readExistingIdsFromStorage(Collection<Long> ids) {
+        LongHashSet existing = new LongHashSet();
+        for (Long id : ids) {
+            if (filmStorage.containsKey(id)) {
+                existing.add(id.longValue());
+            }
+        }
+        return existing;
+    }
+
+    @Override
+    public List<Film> searchFilmsInStorage(FilmSearch search) {
+        return searchIndex.search(search, filmStorage::get, this::readTopRatedFilmsFromStorage);
+    }
+
+    @Override
+    public long countLikesInStorage() {
+        return totalLikes.get();
+    }
+
+    private Film insert(Film entity) {
+        Long id = idGenerator.nextId();
+
+        Film toCreate = Film.builder()
+                .id(id)
+                .name(entity.getName())
+                .description(entity.getDescription())
+                .releaseDate(entity.getReleaseDate())
+                .duration(entity.getDuration())
+                .likes(new LongHashSet())
+                .build();
+        filmStorage.compute(id, (filmId, film) -> {
+            if (film != null) {
+                throw new IllegalStateException(String.format("Film id %d is already taken", filmId));
+            }
+            popularityIndex.add(filmId, 0);
+            searchIndex.add(toCreate);
+            filmIds.add(filmId);
+            journal.filmSaved(toCreate);
+            return toCreate;
+        });
+        return toCreate;
+    }
+
+    private void indexLike(long filmId, long userId) {
+        likedFilms.compute(userId, (id, films) -> {
+            LongHashSet liked = films == null ? new LongHashSet() : films;
+            liked.add(filmId);
+            return liked;
+        });
+    }
+
+    private void unindexLike(long filmId, long userId) {
+        likedFilms.computeIfPresent(userId, (id, films) -> {
+            films.remove(filmId);
+            return films.isEmpty() ? null : films;
+        });
+    }
+
+    private static LongHashSet toLongHashSet(Set<Long> values) {
+        if (values instanceof LongHashSet longHashSet) {
+            return longHashSet;
+        }
+        return values == null ? new LongHashSet() : new LongHashSet(values);
+    }
 }
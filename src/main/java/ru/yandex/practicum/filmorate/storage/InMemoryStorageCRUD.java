@@ -1,15 +1,27 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 public interface InMemoryStorageCRUD<T> {
     T createEntityInStorage(T entity);
 
+    List<T> createEntitiesInStorage(List<T> entities);
+
     void deleteEntityFromStorage(Long id);
 
     T readEntityFromStorage(Long id);
 
+    List<T> readEntitiesFromStorage(Collection<Long> ids);
+
     T updateEntityInStorage(T entity);
 
     List<T> readAllEntityFromStorage();
+
+    List<T> readEntitiesPageFromStorage(Long afterId, int limit);
+
+    long countEntitiesInStorage();
+
+    Set<Long> readExistingIdsFromStorage(Collection<Long> ids);
 }
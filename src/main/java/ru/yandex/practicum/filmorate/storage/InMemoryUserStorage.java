@@ -1,82 +1,425 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
-import ru.yandex.practicum.filmorate.utility.Utility;
+import ru.yandex.practicum.filmorate.utility.LongHashSet;
+import ru.yandex.practicum.filmorate.utility.IdGenerator;
+import ru.yandex.practicum.filmorate.utility.SequentialIdGenerator;
 
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Component
-public class InMemoryUserStorage implements InMemoryStorageCRUD<User> {
+@Profile("!jdbc")
+public class InMemoryUserStorage implements UserStorage {
+    private static final int FRIENDSHIP_STRIPES = 64;
+
     private final Map<Long, User> userStorage;
+    private final NavigableSet<Long> userIds;
+    private final Map<String, Long> idsByLogin;
+    private final Map<String, Long> idsByEmail;
+    private final IdGenerator idGenerator;
+    private final AtomicLong friendEdges;
+    private final ReentrantLock[] friendshipStripes;
+    private volatile StorageJournal journal;
 
     public InMemoryUserStorage() {
-        this.userStorage = new HashMap<>();
+        this(new SequentialIdGenerator());
+    }
+
+    public InMemoryUserStorage(IdGenerator idGenerator) {
+        this.userStorage = new ConcurrentHashMap<>();
+        this.userIds = new ConcurrentSkipListSet<>();
+        this.idsByLogin = new ConcurrentHashMap<>();
+        this.idsByEmail = new ConcurrentHashMap<>();
+        this.idGenerator = idGenerator;
+        this.friendEdges = new AtomicLong();
+        this.friendshipStripes = new ReentrantLock[FRIENDSHIP_STRIPES];
+        Arrays.setAll(friendshipStripes, index -> new ReentrantLock());
+        this.journal = StorageJournal.NONE;
+    }
+
+    public void setJournal(StorageJournal journal) {
+        this.journal = journal;
     }
 
     @Override
     public User createEntityInStorage(User entity) {
+        User created = insert(entity);
+        log.info("User created: {}", created);
+        return created;
+    }
 
-        Long id = Utility.getIdForEntity();
+    @Override
+    public List<User> createEntitiesInStorage(List<User> entities) {
+        List<User> created = new ArrayList<>(entities.size());
+        try {
+            for (User entity : entities) {
+                created.add(insert(entity));
+            }
+        } catch (ConflictException ex) {
+            created.forEach(user -> remove(user.getId()));
+            throw ex;
+        }
+        log.info("Users created: {}", created.size());
+        return created;
+    }
 
-        User toCreate = User.builder()
-                .id(id)
-                .login(entity.getLogin())
-                .email(entity.getEmail())
-                .birthday(entity.getBirthday())
-                .name(entity.getName() == null || entity.getName().isBlank() ? entity.getLogin() : entity.getName())
-                .friends(new HashSet<>())
-                .build();
-        userStorage.put(id, toCreate);
-        log.info("User created: {}", toCreate);
-        return toCreate;
+    public void restoreEntityInStorage(User entity) {
+        Long id = entity.getId();
+        userStorage.compute(id, (userId, stored) -> {
+            Set<Long> friends = stored != null ? stored.getFriends() : toLongHashSet(entity.getFriends());
+            if (stored == null) {
+                userIds.add(userId);
+                friendEdges.addAndGet(friends.size());
+            } else {
+                release(idsByLogin, stored.getLogin(), userId);
+                release(idsByEmail, stored.getEmail(), userId);
+            }
+            if (entity.getLogin() != null) {
+                idsByLogin.put(entity.getLogin(), userId);
+            }
+            if (entity.getEmail() != null) {
+                idsByEmail.put(entity.getEmail(), userId);
+            }
+            return User.builder()
+                    .id(userId)
+                    .login(entity.getLogin())
+                    .email(entity.getEmail())
+                    .birthday(entity.getBirthday())
+                    .name(entity.getName())
+                    .friends(friends)
+                    .build();
+        });
+        idGenerator.skipPast(id);
+    }
+
+    /**
+     * The largest id this storage has handed out, including ids of users deleted since.
+     */
+    public long readLastIdFromStorage() {
+        return idGenerator.lastId();
+    }
+
+    /**
+     * Keeps ids up to {@code id} from being handed out again, as after restoring a snapshot that no longer
+     * holds the users they belonged to.
+     */
+    public void skipIdsInStorage(long id) {
+        idGenerator.skipPast(id);
     }
 
     @Override
     public void deleteEntityFromStorage(Long id) {
-        if (userStorage.containsKey(id)) {
-            userStorage.remove(id);
-            log.info("User deleted: {}", id);
-        } else {
+        if (remove(id) == null) {
             throw new NotFoundException(id);
         }
+        log.info("User deleted: {}", id);
     }
 
     @Override
     public User readEntityFromStorage(Long id) {
-        if (userStorage.containsKey(id)) {
-            return userStorage.get(id);
-        } else {
+        User user = userStorage.get(id);
+        if (user == null) {
             throw new NotFoundException(id);
         }
+        return user;
+    }
+
+    @Override
+    public List<User> readEntitiesFromStorage(Collection<Long> ids) {
+        List<User> users = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            User user = userStorage.get(id);
+            if (user == null) {
+                throw new NotFoundException(id);
+            }
+            users.add(user);
+        }
+        return users;
     }
 
     @Override
     public User updateEntityInStorage(User entity) {
-        if (userStorage.containsKey(entity.getId())) {
+        User updated = userStorage.computeIfPresent(entity.getId(), (userId, stored) -> {
             User toUpdate = User.builder()
-                    .id(entity.getId())
+                    .id(userId)
                     .login(entity.getLogin())
                     .email(entity.getEmail())
                     .birthday(entity.getBirthday())
                     .name(entity.getName() == null || entity.getName().isBlank() ? entity.getLogin() : entity.getName())
-                    .friends(entity.getFriends())
+                    .friends(stored.getFriends())
                     .build();
-            userStorage.put(entity.getId(), toUpdate);
-            log.info("User updated: {}", toUpdate);
+            claimKeys(userId, stored, toUpdate);
+            journal.userSaved(toUpdate);
             return toUpdate;
-        } else {
+        });
+        if (updated == null) {
             throw new NotFoundException(entity.getId());
         }
+        log.info("User updated: {}", updated);
+        return updated;
     }
 
     @Override
     public List<User> readAllEntityFromStorage() {
         return userStorage.values().stream().collect(Collectors.toList());
     }
+
+    @Override
+    public List<User> readEntitiesPageFromStorage(Long afterId, int limit) {
+        List<User> page = new ArrayList<>(limit);
+        Iterator<Long> iterator = userIds.tailSet(afterId == null ? 0L : afterId, false).iterator();
+        while (iterator.hasNext() && page.size() < limit) {
+            User user = userStorage.get(iterator.next());
+            if (user != null) {
+                page.add(user);
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public void addFriendInStorage(Long userId, Long friendId) {
+        link(readEntityFromStorage(userId), readEntityFromStorage(friendId));
+        log.debug("Friendship added: {} and {}", userId, friendId);
+    }
+
+    @Override
+    public void addFriendsInStorage(long[] userIds, long[] friendIds) {
+        long added = 0;
+        for (int i = 0; i < userIds.length; i++) {
+            User user = userStorage.get(userIds[i]);
+            User friend = userStorage.get(friendIds[i]);
+            if (user != null && friend != null && link(user, friend)) {
+                added++;
+            }
+        }
+        log.info("Friendships added: {}", added);
+    }
+
+    @Override
+    public void removeFriendFromStorage(Long userId, Long friendId) {
+        User user = readEntityFromStorage(userId);
+        User friend = readEntityFromStorage(friendId);
+        withFriendshipLocked(userId, friendId, () -> {
+            boolean removed = unlink(user, friendId);
+            if (unlink(friend, userId)) {
+                removed = true;
+            }
+            if (removed) {
+                journal.friendRemoved(userId, friendId);
+            }
+            return removed;
+        });
+        log.debug("Friendship removed: {} and {}", userId, friendId);
+    }
+
+    @Override
+    public long countEntitiesInStorage() {
+        return userStorage.size();
+    }
+
+    @Override
+    public Set<Long> readExistingIdsFromStorage(Collection<Long> ids) {
+        LongHashSet existing = new LongHashSet();
+        for (Long id : ids) {
+            if (userStorage.containsKey(id)) {
+                existing.add(id.longValue());
+            }
+        }
+        return existing;
+    }
+
+    @Override
+    public long countFriendshipsInStorage() {
+        return friendEdges.get();
+    }
+
+    @Override
+    public User readUserByLoginFromStorage(String login) {
+        return readByKey(idsByLogin, "login", login);
+    }
+
+    @Override
+    public User readUserByEmailFromStorage(String email) {
+        return readByKey(idsByEmail, "email", email);
+    }
+
+    private User readByKey(Map<String, Long> index, String field, String key) {
+        Long id = index.get(key);
+        User user = id == null ? null : userStorage.get(id);
+        if (user == null) {
+            throw new NotFoundException(String.format("User not found with %s: %s", field, key));
+        }
+        return user;
+    }
+
+    private User insert(User entity) {
+        Long id = idGenerator.nextId();
+
+        User toCreate = User.builder()
+                .id(id)
+                .login(entity.getLogin())
+                .email(entity.getEmail())
+                .birthday(entity.getBirthday())
+                .name(entity.getName() == null || entity.getName().isBlank() ? entity.getLogin() : entity.getName())
+                .friends(new LongHashSet())
+                .build();
+        userStorage.compute(id, (userId, user) -> {
+            if (user != null) {
+                throw new IllegalStateException(String.format("User id %d is already taken", userId));
+            }
+            claimKeys(userId, null, toCreate);
+            userIds.add(userId);
+            journal.userSaved(toCreate);
+            return toCreate;
+        });
+        return toCreate;
+    }
+
+    /**
+     * Friendship is symmetric, so the user's own friends are exactly the users that point back at it and
+     * the cleanup costs the user's degree. The user leaves the map under its friendship stripe, so a
+     * concurrent {@link #link} either finds it gone or adds a friend the cleanup then sees.
+     */
+    private User remove(Long id) {
+        User[] deleted = new User[1];
+        withFriendshipLocked(id, id, () -> {
+            userStorage.computeIfPresent(id, (userId, stored) -> {
+                release(idsByLogin, stored.getLogin(), userId);
+                release(idsByEmail, stored.getEmail(), userId);
+                deleted[0] = stored;
+                return null;
+            });
+            return deleted[0] != null;
+        });
+        if (deleted[0] != null) {
+            userIds.remove(id);
+            unlinkFromFriends(deleted[0]);
+            journal.userDeleted(id);
+        }
+        return deleted[0];
+    }
+
+    /**
+     * Points the login and email of {@code after} at the user and releases the ones only {@code before} had.
+     * Runs inside the compute of the user, which serializes changes of one user, while claiming a key with
+     * {@code putIfAbsent} keeps two users from taking the same one.
+     */
+    private void claimKeys(Long id, User before, User after) {
+        claim(idsByLogin, "Login", after.getLogin(), id);
+        try {
+            claim(idsByEmail, "Email", after.getEmail(), id);
+        } catch (ConflictException ex) {
+            if (before == null || !Objects.equals(before.getLogin(), after.getLogin())) {
+                release(idsByLogin, after.getLogin(), id);
+            }
+            throw ex;
+        }
+        if (before != null && !Objects.equals(before.getLogin(), after.getLogin())) {
+            release(idsByLogin, before.getLogin(), id);
+        }
+        if (before != null && !Objects.equals(before.getEmail(), after.getEmail())) {
+            release(idsByEmail, before.getEmail(), id);
+        }
+    }
+
+    private static void claim(Map<String, Long> index, String field, String key, Long id) {
+        if (key == null) {
+            return;
+        }
+        Long holder = index.putIfAbsent(key, id);
+        if (holder != null && !holder.equals(id)) {
+            throw new ConflictException(String.format("%s %s is already taken", field, key));
+        }
+    }
+
+    private static void release(Map<String, Long> index, String key, Long id) {
+        if (key != null) {
+            index.remove(key, id);
+        }
+    }
+
+    private void unlinkFromFriends(User user) {
+        for (Long friendId : user.getFriends()) {
+            withFriendshipLocked(user.getId(), friendId, () -> {
+                User friend = userStorage.get(friendId);
+                unlink(user, friendId);
+                return friend != null && unlink(friend, user.getId());
+            });
+        }
+    }
+
+    private boolean unlink(User user, Long friendId) {
+        if (user.getFriends().remove(friendId)) {
+            friendEdges.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds both sides of the friendship and its journal record as one step under the stripes of both users.
+     */
+    private boolean link(User user, User friend) {
+        return withFriendshipLocked(user.getId(), friend.getId(), () -> {
+            if (!userStorage.containsKey(user.getId()) || !userStorage.containsKey(friend.getId())) {
+                // one of them was deleted after it was read
+                return false;
+            }
+            boolean added = user.getFriends().add(friend.getId());
+            if (added) {
+                friendEdges.incrementAndGet();
+            }
+            if (friend.getFriends().add(user.getId())) {
+                friendEdges.incrementAndGet();
+                added = true;
+            }
+            if (added) {
+                journal.friendAdded(user.getId(), friend.getId());
+            }
+            return added;
+        });
+    }
+
+    /**
+     * Runs a change of the friendship between two users, or of one user when the ids are equal, holding the
+     * friendship stripes of both. Stripes are taken in ascending order, so two changes never wait on each
+     * other crosswise.
+     */
+    private boolean withFriendshipLocked(long userId, long friendId, BooleanSupplier change) {
+        int first = Math.min(friendshipStripe(userId), friendshipStripe(friendId));
+        int second = Math.max(friendshipStripe(userId), friendshipStripe(friendId));
+        friendshipStripes[first].lock();
+        friendshipStripes[second].lock();
+        try {
+            return change.getAsBoolean();
+        } finally {
+            friendshipStripes[second].unlock();
+            friendshipStripes[first].unlock();
+        }
+    }
+
+    private static int friendshipStripe(long userId) {
+        return Long.hashCode(userId) & (FRIENDSHIP_STRIPES - 1);
+    }
+
+    private static LongHashSet toLongHashSet(Set<Long> values) {
+        if (values instanceof LongHashSet longHashSet) {
+            return longHashSet;
+        }
+        return values == null ? new LongHashSet() : new LongHashSet(values);
+    }
 }
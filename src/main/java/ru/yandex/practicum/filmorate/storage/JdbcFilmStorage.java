@@ -0,0 +1,376 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSearch;
+import ru.yandex.practicum.filmorate.utility.LongHashSet;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.util.*;
+
+@Slf4j
+@Component
+@Profile("jdbc")
+public class JdbcFilmStorage implements FilmStorage {
+    private static final int IN_CLAUSE_CHUNK = 1000;
+    private static final String FILM_COLUMNS = "f.id, f.name, f.description, f.release_date, f.duration_seconds";
+    private static final String INSERT_LIKE = "INSERT INTO film_likes (film_id, user_id) SELECT :filmId, :userId "
+            + "WHERE NOT EXISTS (SELECT 1 FROM film_likes WHERE film_id = :filmId AND user_id = :userId)";
+    private static final String ADD_TO_LIKES_COUNT = "UPDATE films SET likes_count = likes_count + :delta "
+            + "WHERE id = :filmId";
+    private static final RowMapper<Film> FILM_MAPPER = (rs, rowNum) -> {
+        Date releaseDate = rs.getDate("release_date");
+        long durationSeconds = rs.getLong("duration_seconds");
+        Duration duration = rs.wasNull() ? null : Duration.ofSeconds(durationSeconds);
+        return Film.builder()
+                .id(rs.getLong("id"))
+                .name(rs.getString("name"))
+                .description(rs.getString("description"))
+                .releaseDate(releaseDate == null ? null : releaseDate.toLocalDate())
+                .duration(duration)
+                .likes(new LongHashSet())
+                .build();
+    };
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final SimpleJdbcInsert filmInsert;
+
+    public JdbcFilmStorage(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+        this.filmInsert = new SimpleJdbcInsert(jdbc.getJdbcTemplate())
+                .withTableName("films")
+                .usingColumns("name", "description", "release_date", "duration_seconds")
+                .usingGeneratedKeyColumns("id");
+    }
+
+    @Override
+    public Film createEntityInStorage(Film entity) {
+        Long id = filmInsert.executeAndReturnKey(filmParameters(entity)).longValue();
+        Film created = Film.builder()
+                .id(id)
+                .name(entity.getName())
+                .description(entity.getDescription())
+                .releaseDate(entity.getReleaseDate())
+                .duration(entity.getDuration())
+                .likes(new LongHashSet())
+                .build();
+        log.info("Film created: {}", created);
+        return created;
+    }
+
+    @Override
+    public List<Film> createEntitiesInStorage(List<Film> entities) {
+        SqlParameterSource[] parameters = entities.stream()
+                .map(JdbcFilmStorage::filmParameters)
+                .toArray(SqlParameterSource[]::new);
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbc.batchUpdate("INSERT INTO films (name, description, release_date, duration_seconds) "
+                + "VALUES (:name, :description, :release_date, :duration_seconds)", parameters, keys, new String[]{"id"});
+        List<Map<String, Object>> generated = keys.getKeyList();
+        List<Film> created = new ArrayList<>(entities.size());
+        for (int i = 0; i < entities.size(); i++) {
+            Film entity = entities.get(i);
+            created.add(Film.builder()
+                    .id(((Number) generated.get(i).get("id")).longValue())
+                    .name(entity.getName())
+                    .description(entity.getDescription())
+                    .releaseDate(entity.getReleaseDate())
+                    .duration(entity.getDuration())
+                    .likes(new LongHashSet())
+                    .build());
+        }
+        log.info("Films created: {}", created.size());
+        return created;
+    }
+
+    @Override
+    public void deleteEntityFromStorage(Long id) {
+        int deleted = jdbc.update("DELETE FROM films WHERE id = :id", Map.of("id", id));
+        if (deleted == 0) {
+            throw new NotFoundException(id);
+        }
+        log.info("Film deleted: {}", id);
+    }
+
+    @Override
+    public Film readEntityFromStorage(Long id) {
+        List<Film> films = jdbc.query("SELECT " + FILM_COLUMNS + " FROM films f WHERE f.id = :id",
+                Map.of("id", id), FILM_MAPPER);
+        if (films.isEmpty()) {
+            throw new NotFoundException(id);
+        }
+        return withLikes(films).get(0);
+    }
+
+    @Override
+    public List<Film> readEntitiesFromStorage(Collection<Long> ids) {
+        Map<Long, Film> found = new HashMap<>();
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        for (int from = 0; from < distinct.size(); from += IN_CLAUSE_CHUNK) {
+            List<Long> chunk = distinct.subList(from, Math.min(from + IN_CLAUSE_CHUNK, distinct.size()));
+            jdbc.query("SELECT " + FILM_COLUMNS + " FROM films f WHERE f.id IN (:ids)",
+                            Map.of("ids", chunk), FILM_MAPPER)
+                    .forEach(film -> found.put(film.getId(), film));
+        }
+        List<Film> films = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Film film = found.get(id);
+            if (film == null) {
+                throw new NotFoundException(id);
+            }
+            films.add(film);
+        }
+        withLikes(found.values());
+        return films;
+    }
+
+    @Override
+    public Film updateEntityInStorage(Film entity) {
+        MapSqlParameterSource parameters = filmParameters(entity).addValue("id", entity.getId());
+        int updated = jdbc.update("UPDATE films SET name = :name, description = :description, "
+                + "release_date = :release_date, duration_seconds = :duration_seconds WHERE id = :id", parameters);
+        if (updated == 0) {
+            throw new NotFoundException(entity.getId());
+        }
+        Film film = readEntityFromStorage(entity.getId());
+        log.info("Film updated: {}", film);
+        return film;
+    }
+
+    @Override
+    public List<Film> readAllEntityFromStorage() {
+        return withLikes(jdbc.query("SELECT " + FILM_COLUMNS + " FROM films f ORDER BY f.id", FILM_MAPPER));
+    }
+
+    @Override
+    public List<Film> readEntitiesPageFromStorage(Long afterId, int limit) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("afterId", afterId == null ? 0L : afterId)
+                .addValue("limit", limit);
+        return withLikes(jdbc.query("SELECT " + FILM_COLUMNS + " FROM films f WHERE f.id > :afterId "
+                + "ORDER BY f.id LIMIT :limit", parameters, FILM_MAPPER));
+    }
+
+    @Override
+    public long countEntitiesInStorage() {
+        return count("SELECT COUNT(*) FROM films");
+    }
+
+    /**
+     * Reads the first {@code count} entries of the {@code (likes_count DESC, id)} index, which the like and
+     * unlike transactions keep current, instead of counting every like of every film.
+     */
+    @Override
+    public List<Film> readTopRatedFilmsFromStorage(int count) {
+        return withLikes(jdbc.query("SELECT " + FILM_COLUMNS + " FROM films f "
+                + "ORDER BY f.likes_count DESC, f.id LIMIT :count", Map.of("count", count), FILM_MAPPER));
+    }
+
+    @Override
+    @Transactional
+    public boolean addLikeInStorage(Long filmId, Long userId) {
+        int added;
+        try {
+            added = jdbc.update(INSERT_LIKE, Map.of("filmId", filmId, "userId", userId));
+        } catch (DuplicateKeyException ignored) {
+            // a concurrent request has added the same like
+            return false;
+        } catch (DataIntegrityViolationException ex) {
+            // either foreign key may have failed, the one whose row is missing names the 404
+            boolean filmExists = count("SELECT COUNT(*) FROM films WHERE id = :id", Map.of("id", filmId)) > 0;
+            throw new NotFoundException(filmExists ? userId : filmId);
+        }
+        if (added > 0) {
+            jdbc.update(ADD_TO_LIKES_COUNT, Map.of("filmId", filmId, "delta", 1));
+        }
+        log.debug("Like added: film {}, user {}", filmId, userId);
+        return added > 0;
+    }
+
+    @Override
+    @Transactional
+    public void addLikesInStorage(long[] filmIds, long[] userIds) {
+        List<Long> distinctFilms = Arrays.stream(filmIds).distinct().boxed().toList();
+        Set<Long> existing = readExistingIdsFromStorage(distinctFilms);
+        List<SqlParameterSource> likes = new ArrayList<>(filmIds.length);
+        for (int i = 0; i < filmIds.length; i++) {
+            if (existing.contains(filmIds[i])) {
+                likes.add(new MapSqlParameterSource()
+                        .addValue("filmId", filmIds[i])
+                        .addValue("userId", userIds[i]));
+            }
+        }
+        Map<Long, Integer> addedByFilm = new HashMap<>();
+        for (int from = 0; from < likes.size(); from += IN_CLAUSE_CHUNK) {
+            SqlParameterSource[] chunk = likes.subList(from, Math.min(from + IN_CLAUSE_CHUNK, likes.size()))
+                    .toArray(SqlParameterSource[]::new);
+            int[] added;
+            try {
+                added = jdbc.batchUpdate(INSERT_LIKE, chunk);
+            } catch (DuplicateKeyException ex) {
+                added = new int[chunk.length];
+                for (int i = 0; i < chunk.length; i++) {
+                    try {
+                        added[i] = jdbc.update(INSERT_LIKE, chunk[i]);
+                    } catch (DuplicateKeyException ignored) {
+                        // a concurrent request has added the same like
+                    }
+                }
+            }
+            for (int i = 0; i < chunk.length; i++) {
+                if (added[i] > 0) {
+                    addedByFilm.merge((Long) chunk[i].getValue("filmId"), 1, Integer::sum);
+                }
+            }
+        }
+        jdbc.batchUpdate(ADD_TO_LIKES_COUNT, addedByFilm.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(added -> new MapSqlParameterSource()
+                        .addValue("filmId", added.getKey())
+                        .addValue("delta", added.getValue()))
+                .toArray(SqlParameterSource[]::new));
+        log.info("Likes added: {}", likes.size());
+    }
+
+    @Override
+    @Transactional
+    public boolean removeLikeFromStorage(Long filmId, Long userId) {
+        int removed = jdbc.update("DELETE FROM film_likes WHERE film_id = :filmId AND user_id = :userId",
+                Map.of("filmId", filmId, "userId", userId));
+        if (removed > 0) {
+            jdbc.update(ADD_TO_LIKES_COUNT, Map.of("filmId", filmId, "delta", -1));
+        } else if (count("SELECT COUNT(*) FROM films WHERE id = :id", Map.of("id", filmId)) == 0) {
+            throw new NotFoundException(filmId);
+        }
+        log.debug("Like removed: film {}, user {}", filmId, userId);
+        return removed > 0;
+    }
+
+    @Override
+    public List<Film> readLikedFilmsFromStorage(Long userId) {
+        return withLikes(jdbc.query("SELECT " + FILM_COLUMNS + " FROM films f "
+                + "JOIN film_likes l ON l.film_id = f.id WHERE l.user_id = :userId ORDER BY f.id",
+                Map.of("userId", userId), FILM_MAPPER));
+    }
+
+    /**
+     * Locks the user's likes before deleting them, so the films whose counts are taken down are exactly
+     * the ones that lose a like.
+     */
+    @Override
+    @Transactional
+    public void removeUserLikesFromStorage(Long userId) {
+        Long[] filmIds = jdbc.queryForList("SELECT film_id FROM film_likes WHERE user_id = :userId "
+                + "ORDER BY film_id FOR UPDATE", Map.of("userId", userId), Long.class).toArray(Long[]::new);
+        if (filmIds.length > 0) {
+            MapSqlParameterSource parameters = new MapSqlParameterSource()
+                    .addValue("userId", userId)
+                    .addValue("filmIds", filmIds);
+            jdbc.update("DELETE FROM film_likes WHERE user_id = :userId AND film_id = ANY(:filmIds)", parameters);
+            jdbc.update("UPDATE films SET likes_count = likes_count - 1 WHERE id = ANY(:filmIds)", parameters);
+        }
+        log.info("Likes of user {} removed: {}", userId, filmIds.length);
+    }
+
+    @Override
+    public Set<Long> readExistingIdsFromStorage(Collection<Long> ids) {
+        Set<Long> existing = new HashSet<>();
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        for (int from = 0; from < distinct.size(); from += IN_CLAUSE_CHUNK) {
+            List<Long> chunk = distinct.subList(from, Math.min(from + IN_CLAUSE_CHUNK, distinct.size()));
+            existing.addAll(jdbc.queryForList("SELECT id FROM films WHERE id IN (:ids)", Map.of("ids", chunk),
+                    Long.class));
+        }
+        return existing;
+    }
+
+    @Override
+    public long countLikesInStorage() {
+        return count("SELECT COUNT(*) FROM film_likes");
+    }
+
+    @Override
+    public List<Film> searchFilmsInStorage(FilmSearch search) {
+        StringBuilder sql = new StringBuilder("SELECT " + FILM_COLUMNS + " FROM films f WHERE 1 = 1");
+        MapSqlParameterSource parameters = new MapSqlParameterSource("limit", search.getLimit());
+        if (search.getName() != null) {
+            sql.append(" AND LOWER(f.name) LIKE :name ESCAPE '\\'");
+            parameters.addValue("name", "%" + likePattern(search.getName()) + "%");
+        }
+        if (search.getNamePrefix() != null) {
+            sql.append(" AND LOWER(f.name) LIKE :prefix ESCAPE '\\'");
+            parameters.addValue("prefix", likePattern(search.getNamePrefix()) + "%");
+        }
+        if (search.getReleasedFrom() != null) {
+            sql.append(" AND f.release_date >= :releasedFrom");
+            parameters.addValue("releasedFrom", search.getReleasedFrom());
+        }
+        if (search.getReleasedTo() != null) {
+            sql.append(" AND f.release_date <= :releasedTo");
+            parameters.addValue("releasedTo", search.getReleasedTo());
+        }
+        if (search.getMinDuration() != null) {
+            sql.append(" AND f.duration_seconds >= :minDuration");
+            parameters.addValue("minDuration", search.getMinDuration().toSeconds());
+        }
+        if (search.getMaxDuration() != null) {
+            sql.append(" AND f.duration_seconds <= :maxDuration");
+            parameters.addValue("maxDuration", search.getMaxDuration().toSeconds());
+        }
+        sql.append(search.getSort() == FilmSearch.Sort.LIKES
+                ? " ORDER BY f.likes_count DESC, f.id LIMIT :limit"
+                : " ORDER BY f.release_date DESC NULLS LAST, f.id LIMIT :limit");
+        return withLikes(jdbc.query(sql.toString(), parameters, FILM_MAPPER));
+    }
+
+    private List<Film> withLikes(Collection<Film> films) {
+        Map<Long, Film> byId = new HashMap<>();
+        films.forEach(film -> byId.put(film.getId(), film));
+        List<Long> ids = new ArrayList<>(byId.keySet());
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CLAUSE_CHUNK, ids.size()));
+            jdbc.query("SELECT film_id, user_id FROM film_likes WHERE film_id IN (:ids)", Map.of("ids", chunk),
+                    (RowCallbackHandler) rs -> byId.get(rs.getLong("film_id")).getLikes().add(rs.getLong("user_id")));
+        }
+        return films instanceof List<Film> list ? list : new ArrayList<>(films);
+    }
+
+    private long count(String sql) {
+        return count(sql, Map.of());
+    }
+
+    private long count(String sql, Map<String, ?> parameters) {
+        Long count = jdbc.queryForObject(sql, parameters, Long.class);
+        return count == null ? 0 : count;
+    }
+
+    private static String likePattern(String value) {
+        return value.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+
+    private static MapSqlParameterSource filmParameters(Film film) {
+        return new MapSqlParameterSource()
+                .addValue("name", film.getName())
+                .addValue("description", film.getDescription())
+                .addValue("release_date", film.getReleaseDate())
+                .addValue("duration_seconds", film.getDuration() == null ? null : film.getDuration().toSeconds());
+    }
+}
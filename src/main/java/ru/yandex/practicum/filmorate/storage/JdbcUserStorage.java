@@ -0,0 +1,331 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.utility.LongHashSet;
+
+import java.sql.Date;
+import java.util.*;
+import java.util.stream.LongStream;
+
+@Slf4j
+@Component
+@Profile("jdbc")
+public class JdbcUserStorage implements UserStorage {
+    private static final int IN_CLAUSE_CHUNK = 1000;
+    private static final String USER_COLUMNS = "u.id, u.email, u.login, u.name, u.birthday";
+    private static final String INSERT_FRIENDSHIP = "INSERT INTO friendships (user_id, friend_id) "
+            + "SELECT :userId, :friendId "
+            + "WHERE NOT EXISTS (SELECT 1 FROM friendships WHERE user_id = :userId AND friend_id = :friendId)";
+    private static final RowMapper<User> USER_MAPPER = (rs, rowNum) -> {
+        Date birthday = rs.getDate("birthday");
+        return User.builder()
+                .id(rs.getLong("id"))
+                .email(rs.getString("email"))
+                .login(rs.getString("login"))
+                .name(rs.getString("name"))
+                .birthday(birthday == null ? null : birthday.toLocalDate())
+                .friends(new LongHashSet())
+                .build();
+    };
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final SimpleJdbcInsert userInsert;
+
+    public JdbcUserStorage(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+        this.userInsert = new SimpleJdbcInsert(jdbc.getJdbcTemplate())
+                .withTableName("users")
+                .usingColumns("email", "login", "name", "birthday")
+                .usingGeneratedKeyColumns("id");
+    }
+
+    @Override
+    public User createEntityInStorage(User entity) {
+        User toCreate = User.builder()
+                .login(entity.getLogin())
+                .email(entity.getEmail())
+                .birthday(entity.getBirthday())
+                .name(entity.getName() == null || entity.getName().isBlank() ? entity.getLogin() : entity.getName())
+                .friends(new LongHashSet())
+                .build();
+        try {
+            toCreate.setId(userInsert.executeAndReturnKey(userParameters(toCreate)).longValue());
+        } catch (DuplicateKeyException ex) {
+            throw conflict(toCreate, 0L);
+        }
+        log.info("User created: {}", toCreate);
+        return toCreate;
+    }
+
+    @Override
+    @Transactional
+    public List<User> createEntitiesInStorage(List<User> entities) {
+        List<User> created = new ArrayList<>(entities.size());
+        for (User entity : entities) {
+            created.add(User.builder()
+                    .login(entity.getLogin())
+                    .email(entity.getEmail())
+                    .birthday(entity.getBirthday())
+                    .name(entity.getName() == null || entity.getName().isBlank() ? entity.getLogin() : entity.getName())
+                    .friends(new LongHashSet())
+                    .build());
+        }
+        SqlParameterSource[] parameters = created.stream()
+                .map(JdbcUserStorage::userParameters)
+                .toArray(SqlParameterSource[]::new);
+        KeyHolder keys = new GeneratedKeyHolder();
+        try {
+            jdbc.batchUpdate("INSERT INTO users (email, login, name, birthday) "
+                    + "VALUES (:email, :login, :name, :birthday)", parameters, keys, new String[]{"id"});
+        } catch (DuplicateKeyException ex) {
+            throw new ConflictException("A login or email in the batch is already taken");
+        }
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < created.size(); i++) {
+            created.get(i).setId(((Number) generated.get(i).get("id")).longValue());
+        }
+        log.info("Users created: {}", created.size());
+        return created;
+    }
+
+    @Override
+    public void deleteEntityFromStorage(Long id) {
+        int deleted = jdbc.update("DELETE FROM users WHERE id = :id", Map.of("id", id));
+        if (deleted == 0) {
+            throw new NotFoundException(id);
+        }
+        log.info("User deleted: {}", id);
+    }
+
+    @Override
+    public User readEntityFromStorage(Long id) {
+        List<User> users = jdbc.query("SELECT " + USER_COLUMNS + " FROM users u WHERE u.id = :id",
+                Map.of("id", id), USER_MAPPER);
+        if (users.isEmpty()) {
+            throw new NotFoundException(id);
+        }
+        return withFriends(users).get(0);
+    }
+
+    @Override
+    public List<User> readEntitiesFromStorage(Collection<Long> ids) {
+        Map<Long, User> found = new HashMap<>();
+        jdbc.query("SELECT " + USER_COLUMNS + " FROM users u JOIN UNNEST(:ids) t(id) ON u.id = t.id",
+                        Map.of("ids", idArray(ids)), USER_MAPPER)
+                .forEach(user -> found.put(user.getId(), user));
+        List<User> users = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            User user = found.get(id);
+            if (user == null) {
+                throw new NotFoundException(id);
+            }
+            users.add(user);
+        }
+        withFriends(found.values());
+        return users;
+    }
+
+    @Override
+    public User updateEntityInStorage(User entity) {
+        User toUpdate = User.builder()
+                .id(entity.getId())
+                .login(entity.getLogin())
+                .email(entity.getEmail())
+                .birthday(entity.getBirthday())
+                .name(entity.getName() == null || entity.getName().isBlank() ? entity.getLogin() : entity.getName())
+                .build();
+        int updated;
+        try {
+            updated = jdbc.update("UPDATE users SET email = :email, login = :login, name = :name, "
+                    + "birthday = :birthday WHERE id = :id", userParameters(toUpdate).addValue("id", entity.getId()));
+        } catch (DuplicateKeyException ex) {
+            throw conflict(toUpdate, entity.getId());
+        }
+        if (updated == 0) {
+            throw new NotFoundException(entity.getId());
+        }
+        User user = readEntityFromStorage(entity.getId());
+        log.info("User updated: {}", user);
+        return user;
+    }
+
+    @Override
+    public List<User> readAllEntityFromStorage() {
+        return withFriends(jdbc.query("SELECT " + USER_COLUMNS + " FROM users u ORDER BY u.id", USER_MAPPER));
+    }
+
+    @Override
+    public List<User> readEntitiesPageFromStorage(Long afterId, int limit) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("afterId", afterId == null ? 0L : afterId)
+                .addValue("limit", limit);
+        return withFriends(jdbc.query("SELECT " + USER_COLUMNS + " FROM users u WHERE u.id > :afterId "
+                + "ORDER BY u.id LIMIT :limit", parameters, USER_MAPPER));
+    }
+
+    @Override
+    public long countEntitiesInStorage() {
+        return count("SELECT COUNT(*) FROM users");
+    }
+
+    @Override
+    @Transactional
+    public void addFriendInStorage(Long userId, Long friendId) {
+        requireUsers(userId, friendId);
+        try {
+            jdbc.batchUpdate(INSERT_FRIENDSHIP, friendshipParameters(userId, friendId));
+        } catch (DuplicateKeyException ignored) {
+            // a concurrent request has added the same friendship
+        }
+        log.debug("Friendship added: {} and {}", userId, friendId);
+    }
+
+    @Override
+    public void addFriendsInStorage(long[] userIds, long[] friendIds) {
+        List<Long> distinctUsers = LongStream.concat(Arrays.stream(userIds), Arrays.stream(friendIds))
+                .distinct()
+                .boxed()
+                .toList();
+        Set<Long> existing = readExistingIdsFromStorage(distinctUsers);
+        List<SqlParameterSource> edges = new ArrayList<>(userIds.length * 2);
+        for (int i = 0; i < userIds.length; i++) {
+            if (existing.contains(userIds[i]) && existing.contains(friendIds[i])) {
+                edges.addAll(Arrays.asList(friendshipParameters(userIds[i], friendIds[i])));
+            }
+        }
+        for (int from = 0; from < edges.size(); from += IN_CLAUSE_CHUNK) {
+            SqlParameterSource[] chunk = edges.subList(from, Math.min(from + IN_CLAUSE_CHUNK, edges.size()))
+                    .toArray(SqlParameterSource[]::new);
+            try {
+                jdbc.batchUpdate(INSERT_FRIENDSHIP, chunk);
+            } catch (DuplicateKeyException ex) {
+                for (SqlParameterSource edge : chunk) {
+                    try {
+                        jdbc.update(INSERT_FRIENDSHIP, edge);
+                    } catch (DuplicateKeyException ignored) {
+                        // a concurrent request has added the same friendship
+                    }
+                }
+            }
+        }
+        log.info("Friendships added: {}", edges.size() / 2);
+    }
+
+    @Override
+    @Transactional
+    public void removeFriendFromStorage(Long userId, Long friendId) {
+        requireUsers(userId, friendId);
+        jdbc.batchUpdate("DELETE FROM friendships WHERE user_id = :userId AND friend_id = :friendId",
+                friendshipParameters(userId, friendId));
+        log.debug("Friendship removed: {} and {}", userId, friendId);
+    }
+
+    @Override
+    public Set<Long> readExistingIdsFromStorage(Collection<Long> ids) {
+        return new HashSet<>(jdbc.queryForList("SELECT u.id FROM users u JOIN UNNEST(:ids) t(id) ON u.id = t.id",
+                Map.of("ids", idArray(ids)), Long.class));
+    }
+
+    @Override
+    public long countFriendshipsInStorage() {
+        return count("SELECT COUNT(*) FROM friendships");
+    }
+
+    @Override
+    public User readUserByLoginFromStorage(String login) {
+        return readByKey("login", login);
+    }
+
+    @Override
+    public User readUserByEmailFromStorage(String email) {
+        return readByKey("email", email);
+    }
+
+    private User readByKey(String column, String key) {
+        List<User> users = jdbc.query("SELECT " + USER_COLUMNS + " FROM users u WHERE u." + column + " = :key",
+                Map.of("key", key), USER_MAPPER);
+        if (users.isEmpty()) {
+            throw new NotFoundException(String.format("User not found with %s: %s", column, key));
+        }
+        return withFriends(users).get(0);
+    }
+
+    /**
+     * Tells which unique key the user collided on, ignoring the user's own row.
+     */
+    private ConflictException conflict(User user, Long id) {
+        List<Long> holders = jdbc.queryForList("SELECT id FROM users WHERE login = :login AND id <> :id",
+                new MapSqlParameterSource().addValue("login", user.getLogin()).addValue("id", id), Long.class);
+        if (!holders.isEmpty()) {
+            return new ConflictException(String.format("Login %s is already taken", user.getLogin()));
+        }
+        return new ConflictException(String.format("Email %s is already taken", user.getEmail()));
+    }
+
+    private void requireUsers(Long userId, Long friendId) {
+        Set<Long> existing = new HashSet<>(jdbc.queryForList("SELECT id FROM users WHERE id IN (:ids)",
+                Map.of("ids", List.of(userId, friendId)), Long.class));
+        if (!existing.contains(userId)) {
+            throw new NotFoundException(userId);
+        }
+        if (!existing.contains(friendId)) {
+            throw new NotFoundException(friendId);
+        }
+    }
+
+    private List<User> withFriends(Collection<User> users) {
+        Map<Long, User> byId = new HashMap<>();
+        users.forEach(user -> byId.put(user.getId(), user));
+        if (!byId.isEmpty()) {
+            jdbc.query("SELECT f.user_id, f.friend_id FROM friendships f "
+                    + "JOIN UNNEST(:ids) t(id) ON f.user_id = t.id",
+                    Map.of("ids", idArray(byId.keySet())),
+                    (RowCallbackHandler) rs -> byId.get(rs.getLong("user_id")).getFriends().add(rs.getLong("friend_id")));
+        }
+        return users instanceof List<User> list ? list : new ArrayList<>(users);
+    }
+
+    private long count(String sql) {
+        Long count = jdbc.queryForObject(sql, Map.of(), Long.class);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Binds ids as one array parameter joined through {@code UNNEST}, so every batch size shares one prepared
+     * statement where an {@code IN} list would be parsed again for each distinct length, and each id is one
+     * primary key lookup.
+     */
+    private static Long[] idArray(Collection<Long> ids) {
+        return ids.stream().distinct().toArray(Long[]::new);
+    }
+
+    private static SqlParameterSource[] friendshipParameters(Long userId, Long friendId) {
+        return new SqlParameterSource[]{
+                new MapSqlParameterSource().addValue("userId", userId).addValue("friendId", friendId),
+                new MapSqlParameterSource().addValue("userId", friendId).addValue("friendId", userId)
+        };
+    }
+
+    private static MapSqlParameterSource userParameters(User user) {
+        return new MapSqlParameterSource()
+                .addValue("email", user.getEmail())
+                .addValue("login", user.getLogin())
+                .addValue("name", user.getName())
+                .addValue("birthday", user.getBirthday());
+    }
+}
@@ -0,0 +1,540 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSearch;
+import ru.yandex.practicum.filmorate.utility.IdGenerator;
+import ru.yandex.practicum.filmorate.utility.LongHashSet;
+import ru.yandex.practicum.filmorate.utility.SequentialIdGenerator;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Film catalog that keeps films out of the Java heap. Ids are dense, so {@code id - 1} is the row in
+ * chunked direct-buffer columns holding the release epoch day, duration seconds, like count and references
+ * into an {@link OffHeapStringArena} for name and description. {@link Film} objects are only built when a
+ * film is read. The like sets stay on the heap as primitive sets, hanging off a {@code LongHashSet[65536]}
+ * that every chunk allocates up front, and so do the popularity ranking of liked films and a per-chunk
+ * bitmap of the films without likes, which fills up popular films in id order without visiting liked ones.
+ */
+@Slf4j
+@Component
+@Profile("offheap")
+public class OffHeapFilmStorage implements FilmStorage {
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_ROWS = 1 << CHUNK_BITS;
+    private static final int ROW_MASK = CHUNK_ROWS - 1;
+    private static final int STRIPES = 1024;
+    private static final int NULL_DAY = Integer.MIN_VALUE;
+    private static final long NULL_DURATION = Long.MIN_VALUE;
+
+    private final IdGenerator idGenerator;
+    private final OffHeapStringArena strings;
+    private final ReentrantLock[] stripes;
+    private final ReentrantLock growLock;
+    private final FilmPopularityIndex popularityIndex;
+    private final FilmSearchIndex searchIndex;
+    private final Map<Long, LongHashSet> likedFilms;
+    private final AtomicLong filmCount;
+    private final AtomicLong totalLikes;
+    private final AtomicLong maxId;
+    private volatile Chunk[] chunks;
+
+    public OffHeapFilmStorage() {
+        this(new SequentialIdGenerator());
+    }
+
+    public OffHeapFilmStorage(IdGenerator idGenerator) {
+        this.idGenerator = idGenerator;
+        this.strings = new OffHeapStringArena();
+        this.stripes = new ReentrantLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.growLock = new ReentrantLock();
+        this.popularityIndex = new FilmPopularityIndex();
+        this.searchIndex = new FilmSearchIndex();
+        this.likedFilms = new ConcurrentHashMap<>();
+        this.filmCount = new AtomicLong();
+        this.totalLikes = new AtomicLong();
+        this.maxId = new AtomicLong();
+        this.chunks = new Chunk[0];
+    }
+
+    @Override
+    public Film createEntityInStorage(Film entity) {
+        Film created = insert(entity);
+        log.info("Film created: {}", created);
+        return created;
+    }
+
+    @Override
+    public List<Film> createEntitiesInStorage(List<Film> entities) {
+        List<Film> created = new ArrayList<>(entities.size());
+        for (Film entity : entities) {
+            created.add(insert(entity));
+        }
+        log.info("Films created: {}", created.size());
+        return created;
+    }
+
+    @Override
+    public void deleteEntityFromStorage(Long id) {
+        Chunk chunk = chunkOf(id);
+        LongHashSet likes;
+        ReentrantLock lock = lockOf(id);
+        lock.lock();
+        try {
+            int row = rowOf(id);
+            if (chunk == null || !chunk.isPresent(row)) {
+                throw new NotFoundException(id);
+            }
+            searchIndex.remove(chunk.materialize(id, row, strings));
+            chunk.present.put(row, (byte) 0);
+            chunk.likeCounts.putInt(row * Integer.BYTES, 0);
+            likes = chunk.likes[row];
+            chunk.likes[row] = null;
+            chunk.markUnliked(row, false);
+            popularityIndex.remove(id);
+        } finally {
+            lock.unlock();
+        }
+        filmCount.decrementAndGet();
+        if (likes != null) {
+            totalLikes.addAndGet(-likes.size());
+            likes.forEachLong(userId -> unindexLike(id, userId));
+        }
+        log.info("Film deleted: {}", id);
+    }
+
+    @Override
+    public Film readEntityFromStorage(Long id) {
+        Film film = read(id);
+        if (film == null) {
+            throw new NotFoundException(id);
+        }
+        return film;
+    }
+
+    @Override
+    public List<Film> readEntitiesFromStorage(Collection<Long> ids) {
+        List<Film> films = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            films.add(readEntityFromStorage(id));
+        }
+        return films;
+    }
+
+    @Override
+    public Film updateEntityInStorage(Film entity) {
+        Long id = entity.getId();
+        Chunk chunk = chunkOf(id);
+        long nameRef = strings.put(entity.getName());
+        long descriptionRef = strings.put(entity.getDescription());
+        ReentrantLock lock = lockOf(id);
+        lock.lock();
+        try {
+            int row = rowOf(id);
+            if (chunk == null || !chunk.isPresent(row)) {
+                throw new NotFoundException(id);
+            }
+            Film before = chunk.materialize(id, row, strings);
+            chunk.write(row, entity, nameRef, descriptionRef);
+            searchIndex.update(before, chunk.materialize(id, row, strings));
+        } finally {
+            lock.unlock();
+        }
+        Film updated = readEntityFromStorage(id);
+        log.info("Film updated: {}", updated);
+        return updated;
+    }
+
+    @Override
+    public List<Film> readAllEntityFromStorage() {
+        return readEntitiesPageFromStorage(0L, (int) Math.min(Integer.MAX_VALUE, filmCount.get()));
+    }
+
+    @Override
+    public List<Film> readEntitiesPageFromStorage(Long afterId, int limit) {
+        List<Film> page = new ArrayList<>(Math.min(limit, 1024));
+        long last = maxId.get();
+        for (long id = (afterId == null ? 0L : afterId) + 1; id <= last && page.size() < limit; id++) {
+            Film film = read(id);
+            if (film != null) {
+                page.add(film);
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public long countEntitiesInStorage() {
+        return filmCount.get();
+    }
+
+    @Override
+    public Set<Long> readExistingIdsFromStorage(Collection<Long> ids) {
+        LongHashSet existing = new LongHashSet();
+        for (Long id : ids) {
+            Chunk chunk = chunkOf(id);
+            if (chunk != null && chunk.isPresent(rowOf(id))) {
+                existing.add(id.longValue());
+            }
+        }
+        return existing;
+    }
+
+    @Override
+    public List<Film> readTopRatedFilmsFromStorage(int count) {
+        List<Film> top = new ArrayList<>(count);
+        LongHashSet ranked = new LongHashSet();
+        for (Long id : popularityIndex.top(count)) {
+            Film film = read(id);
+            if (film != null) {
+                top.add(film);
+                ranked.add(id.longValue());
+            }
+        }
+        Chunk[] current = chunks;
+        for (int index = 0; index < current.length && top.size() < count; index++) {
+            Chunk chunk = current[index];
+            if (chunk.unlikedCount.get() == 0) {
+                continue;
+            }
+            for (int word = 0; word < chunk.unliked.length() && top.size() < count; word++) {
+                long bits = chunk.unliked.get(word);
+                while (bits != 0 && top.size() < count) {
+                    long id = ((long) index << CHUNK_BITS) + ((long) word << 6) + Long.numberOfTrailingZeros(bits) + 1;
+                    bits &= bits - 1;
+                    Film film = read(id);
+                    if (film != null && film.getLikes().isEmpty() && !ranked.contains(id)) {
+                        top.add(film);
+                    }
+                }
+            }
+        }
+        return top;
+    }
+
+    @Override
+    public boolean addLikeInStorage(Long filmId, Long userId) {
+        int added = addLikes(filmId, new long[]{userId}, 0, 1);
+        if (added < 0) {
+            throw new NotFoundException(filmId);
+        }
+        log.debug("Like added: film {}, user {}", filmId, userId);
+        return added > 0;
+    }
+
+    @Override
+    public void addLikesInStorage(long[] filmIds, long[] userIds) {
+        long added = 0;
+        int from = 0;
+        while (from < filmIds.length) {
+            int to = from + 1;
+            while (to < filmIds.length && filmIds[to] == filmIds[from]) {
+                to++;
+            }
+            added += Math.max(0, addLikes(filmIds[from], userIds, from, to));
+            from = to;
+        }
+        log.info("Likes added: {}", added);
+    }
+
+    @Override
+    public boolean removeLikeFromStorage(Long filmId, Long userId) {
+        int removed = removeLike(filmId, userId);
+        if (removed < 0) {
+            throw new NotFoundException(filmId);
+        }
+        log.debug("Like removed: film {}, user {}", filmId, userId);
+        return removed > 0;
+    }
+
+    @Override
+    public List<Film> readLikedFilmsFromStorage(Long userId) {
+        LongHashSet liked = likedFilms.get(userId);
+        if (liked == null) {
+            return new ArrayList<>();
+        }
+        long[] ids = liked.toLongArray();
+        Arrays.sort(ids);
+        List<Film> films = new ArrayList<>(ids.length);
+        for (long filmId : ids) {
+            Film film = read(filmId);
+            if (film != null) {
+                films.add(film);
+            }
+        }
+        return films;
+    }
+
+    @Override
+    public void removeUserLikesFromStorage(Long userId) {
+        LongHashSet liked = likedFilms.remove(userId);
+        if (liked != null) {
+            liked.forEachLong(filmId -> removeLike(filmId, userId));
+            log.info("Likes of user {} removed: {}", userId, liked.size());
+        }
+    }
+
+    @Override
+    public List<Film> searchFilmsInStorage(FilmSearch search) {
+        return searchIndex.search(search, this::read, this::readTopRatedFilmsFromStorage);
+    }
+
+    @Override
+    public long countLikesInStorage() {
+        return totalLikes.get();
+    }
+
+    /**
+     * Direct memory held by the columns and the string arena.
+     */
+    public long offHeapBytes() {
+        return (long) chunks.length * Chunk.BYTES + strings.capacityBytes();
+    }
+
+    private Film insert(Film entity) {
+        long id = idGenerator.nextId();
+        Chunk chunk = ensureChunk(id);
+        long nameRef = strings.put(entity.getName());
+        long descriptionRef = strings.put(entity.getDescription());
+        Film created = Film.builder()
+                .id(id)
+                .name(entity.getName())
+                .description(entity.getDescription())
+                .releaseDate(entity.getReleaseDate())
+                .duration(entity.getDuration())
+                .likes(new LongHashSet())
+                .build();
+        ReentrantLock lock = lockOf(id);
+        lock.lock();
+        try {
+            int row = rowOf(id);
+            if (chunk.isPresent(row)) {
+                throw new IllegalStateException(String.format("Film id %d is already taken", id));
+            }
+            chunk.write(row, entity, nameRef, descriptionRef);
+            chunk.likeCounts.putInt(row * Integer.BYTES, 0);
+            chunk.present.put(row, (byte) 1);
+            chunk.markUnliked(row, true);
+            searchIndex.add(created);
+        } finally {
+            lock.unlock();
+        }
+        filmCount.incrementAndGet();
+        maxId.accumulateAndGet(id, Math::max);
+        return created;
+    }
+
+    private Film read(long id) {
+        Chunk chunk = chunkOf(id);
+        if (chunk == null) {
+            return null;
+        }
+        ReentrantLock lock = lockOf(id);
+        lock.lock();
+        try {
+            int row = rowOf(id);
+            return chunk.isPresent(row) ? chunk.materialize(id, row, strings) : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of likes added, or -1 when the film does not exist
+     */
+    private int addLikes(long filmId, long[] userIds, int from, int to) {
+        Chunk chunk = chunkOf(filmId);
+        if (chunk == null) {
+            return -1;
+        }
+        int added = 0;
+        ReentrantLock lock = lockOf(filmId);
+        lock.lock();
+        try {
+            int row = rowOf(filmId);
+            if (!chunk.isPresent(row)) {
+                return -1;
+            }
+            LongHashSet likes = chunk.likes[row];
+            if (likes == null) {
+                likes = new LongHashSet();
+                chunk.likes[row] = likes;
+            }
+            for (int i = from; i < to; i++) {
+                if (likes.add(userIds[i])) {
+                    added++;
+                    indexLike(filmId, userIds[i]);
+                }
+            }
+            if (added > 0) {
+                chunk.likeCounts.putInt(row * Integer.BYTES, likes.size());
+                chunk.markUnliked(row, false);
+                popularityIndex.update(filmId, likes.size());
+            }
+        } finally {
+            lock.unlock();
+        }
+        totalLikes.addAndGet(added);
+        return added;
+    }
+
+    private int removeLike(long filmId, long userId) {
+        Chunk chunk = chunkOf(filmId);
+        if (chunk == null) {
+            return -1;
+        }
+        ReentrantLock lock = lockOf(filmId);
+        lock.lock();
+        try {
+            int row = rowOf(filmId);
+            if (!chunk.isPresent(row)) {
+                return -1;
+            }
+            LongHashSet likes = chunk.likes[row];
+            if (likes == null || !likes.remove(userId)) {
+                return 0;
+            }
+            totalLikes.decrementAndGet();
+            unindexLike(filmId, userId);
+            chunk.likeCounts.putInt(row * Integer.BYTES, likes.size());
+            if (likes.isEmpty()) {
+                chunk.markUnliked(row, true);
+                popularityIndex.remove(filmId);
+            } else {
+                popularityIndex.update(filmId, likes.size());
+            }
+            return 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void indexLike(long filmId, long userId) {
+        likedFilms.compute(userId, (id, films) -> {
+            LongHashSet liked = films == null ? new LongHashSet() : films;
+            liked.add(filmId);
+            return liked;
+        });
+    }
+
+    private void unindexLike(long filmId, long userId) {
+        likedFilms.computeIfPresent(userId, (id, films) -> {
+            films.remove(filmId);
+            return films.isEmpty() ? null : films;
+        });
+    }
+
+    private Chunk chunkOf(long id) {
+        Chunk[] current = chunks;
+        long chunk = (id - 1) >>> CHUNK_BITS;
+        return id > 0 && chunk < current.length ? current[(int) chunk] : null;
+    }
+
+    private Chunk ensureChunk(long id) {
+        Chunk chunk = chunkOf(id);
+        if (chunk != null) {
+            return chunk;
+        }
+        growLock.lock();
+        try {
+            int needed = (int) ((id - 1) >>> CHUNK_BITS) + 1;
+            if (chunks.length < needed) {
+                Chunk[] grown = Arrays.copyOf(chunks, needed);
+                for (int i = chunks.length; i < needed; i++) {
+                    grown[i] = new Chunk();
+                }
+                chunks = grown;
+            }
+            return chunks[needed - 1];
+        } finally {
+            growLock.unlock();
+        }
+    }
+
+    private ReentrantLock lockOf(long id) {
+        return stripes[(int) (id & (STRIPES - 1))];
+    }
+
+    private static int rowOf(long id) {
+        return (int) ((id - 1) & ROW_MASK);
+    }
+
+    private static final class Chunk {
+        private static final int BYTES = CHUNK_ROWS * (1 + Integer.BYTES + Long.BYTES + Integer.BYTES
+                + Long.BYTES + Long.BYTES);
+
+        private final ByteBuffer present = column(1);
+        private final ByteBuffer releaseDays = column(Integer.BYTES);
+        private final ByteBuffer durations = column(Long.BYTES);
+        private final ByteBuffer likeCounts = column(Integer.BYTES);
+        private final ByteBuffer names = column(Long.BYTES);
+        private final ByteBuffer descriptions = column(Long.BYTES);
+        private final LongHashSet[] likes = new LongHashSet[CHUNK_ROWS];
+        private final AtomicLongArray unliked = new AtomicLongArray(CHUNK_ROWS / Long.SIZE);
+        private final AtomicInteger unlikedCount = new AtomicInteger();
+
+        private boolean isPresent(int row) {
+            return present.get(row) != 0;
+        }
+
+        /**
+         * Flips the row's bit in the bitmap of films without likes. Rows of one word are guarded by different
+         * stripes, so the word is updated atomically.
+         */
+        private void markUnliked(int row, boolean isUnliked) {
+            long bit = 1L << row;
+            long before = isUnliked ? unliked.getAndAccumulate(row >>> 6, bit, (word, mask) -> word | mask)
+                    : unliked.getAndAccumulate(row >>> 6, bit, (word, mask) -> word & ~mask);
+            if (((before & bit) != 0) != isUnliked) {
+                unlikedCount.addAndGet(isUnliked ? 1 : -1);
+            }
+        }
+
+        private void write(int row, Film film, long nameRef, long descriptionRef) {
+            releaseDays.putInt(row * Integer.BYTES, film.getReleaseDate() == null ? NULL_DAY
+                    : Math.toIntExact(film.getReleaseDate().toEpochDay()));
+            durations.putLong(row * Long.BYTES, film.getDuration() == null ? NULL_DURATION
+                    : film.getDuration().toSeconds());
+            names.putLong(row * Long.BYTES, nameRef);
+            descriptions.putLong(row * Long.BYTES, descriptionRef);
+        }
+
+        private Film materialize(long id, int row, OffHeapStringArena strings) {
+            int releaseDay = releaseDays.getInt(row * Integer.BYTES);
+            long duration = durations.getLong(row * Long.BYTES);
+            return Film.builder()
+                    .id(id)
+                    .name(strings.get(names.getLong(row * Long.BYTES)))
+                    .description(strings.get(descriptions.getLong(row * Long.BYTES)))
+                    .releaseDate(releaseDay == NULL_DAY ? null : LocalDate.ofEpochDay(releaseDay))
+                    .duration(duration == NULL_DURATION ? null : Duration.ofSeconds(duration))
+                    .likes(likes[row] != null ? likes[row] : new LongHashSet())
+                    .build();
+        }
+
+        private static ByteBuffer column(int width) {
+            return ByteBuffer.allocateDirect(CHUNK_ROWS * width).order(ByteOrder.nativeOrder());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only UTF-8 string storage in direct buffers. A string is addressed by a single long that packs its
+ * position and length, so a column of strings is a column of longs. Replaced strings are not reclaimed.
+ */
+final class OffHeapStringArena {
+    static final long NULL_REF = -1L;
+
+    private static final int LENGTH_BITS = 24;
+    private static final int CHUNK_BITS = 24;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+    private int position = CHUNK_SIZE;
+
+    long put(String value) {
+        if (value == null) {
+            return NULL_REF;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= CHUNK_SIZE) {
+            throw new IllegalArgumentException("String of " + bytes.length + " bytes does not fit the arena");
+        }
+        appendLock.lock();
+        try {
+            if (position + bytes.length > CHUNK_SIZE) {
+                ByteBuffer[] grown = new ByteBuffer[chunks.length + 1];
+                System.arraycopy(chunks, 0, grown, 0, chunks.length);
+                grown[chunks.length] = ByteBuffer.allocateDirect(CHUNK_SIZE);
+                chunks = grown;
+                position = 0;
+            }
+            int chunk = chunks.length - 1;
+            chunks[chunk].put(position, bytes);
+            long offset = ((long) chunk << CHUNK_BITS) | position;
+            position += bytes.length;
+            return offset << LENGTH_BITS | bytes.length;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    String get(long ref) {
+        if (ref == NULL_REF) {
+            return null;
+        }
+        int length = (int) (ref & ((1 << LENGTH_BITS) - 1));
+        long offset = ref >>> LENGTH_BITS;
+        byte[] bytes = new byte[length];
+        chunks[(int) (offset >>> CHUNK_BITS)].get((int) (offset & (CHUNK_SIZE - 1)), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    long capacityBytes() {
+        return (long) chunks.length * CHUNK_SIZE;
+    }
+}
@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Puts size-bounded caches in front of the relational storages. Caffeine evicts with W-TinyLFU;
+ * hit, miss and eviction counts are published as {@code cache.*} meters tagged with the cache name.
+ */
+@Configuration
+@Profile("jdbc")
+@ConditionalOnProperty(prefix = "filmorate.cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(StorageCacheProperties.class)
+public class StorageCacheConfiguration {
+    @Bean
+    @Primary
+    public CachingFilmStorage cachingFilmStorage(JdbcFilmStorage backend, StorageCacheProperties properties,
+                                                 MeterRegistry meterRegistry) {
+        return new CachingFilmStorage(backend, cache(properties, meterRegistry, "films"));
+    }
+
+    @Bean
+    @Primary
+    public CachingUserStorage cachingUserStorage(JdbcUserStorage backend, StorageCacheProperties properties,
+                                                 MeterRegistry meterRegistry) {
+        return new CachingUserStorage(backend, cache(properties, meterRegistry, "users"));
+    }
+
+    private static <T> AsyncCache<Long, T> cache(StorageCacheProperties properties, MeterRegistry meterRegistry,
+                                            String name) {
+        AsyncCache<Long, T> cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .recordStats()
+                .buildAsync();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+    }
+}
@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.cache")
+public class StorageCacheProperties {
+    private boolean enabled = true;
+    private long maximumSize = 100_000;
+    private Duration expireAfterWrite = Duration.ofMinutes(10);
+}
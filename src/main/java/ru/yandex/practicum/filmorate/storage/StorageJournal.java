@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+/**
+ * Receives every change the in-memory storages apply. Calls for one entity arrive in the order
+ * the changes were applied: storages publish an entity's changes while holding its map entry,
+ * friendship changes while holding the friendship locks of both users, and a deletion once the
+ * entity is out of the map and can no longer change.
+ */
+public interface StorageJournal {
+    StorageJournal NONE = new StorageJournal() {
+    };
+
+    default void filmSaved(Film film) {
+    }
+
+    default void filmDeleted(Long filmId) {
+    }
+
+    default void likeAdded(Long filmId, Long userId) {
+    }
+
+    default void likeRemoved(Long filmId, Long userId) {
+    }
+
+    default void userSaved(User user) {
+    }
+
+    default void userDeleted(Long userId) {
+    }
+
+    default void friendAdded(Long userId, Long friendId) {
+    }
+
+    default void friendRemoved(Long userId, Long friendId) {
+    }
+}
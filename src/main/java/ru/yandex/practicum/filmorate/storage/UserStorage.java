@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.User;
+
+/**
+ * Logins and emails are unique: creating or updating a user with one that another user holds throws
+ * {@link ru.yandex.practicum.filmorate.exception.ConflictException}. A batch create with such a user
+ * creates none of the batch.
+ */
+public interface UserStorage extends InMemoryStorageCRUD<User> {
+    void addFriendInStorage(Long userId, Long friendId);
+
+    void removeFriendFromStorage(Long userId, Long friendId);
+
+    /**
+     * Makes {@code userIds[i]} and {@code friendIds[i]} friends. Pairs with a missing user are skipped.
+     */
+    void addFriendsInStorage(long[] userIds, long[] friendIds);
+
+    long countFriendshipsInStorage();
+
+    /**
+     * Looks the user up by the unique login, without scanning.
+     */
+    User readUserByLoginFromStorage(String login);
+
+    /**
+     * Looks the user up by the unique email, without scanning.
+     */
+    User readUserByEmailFromStorage(String email);
+}
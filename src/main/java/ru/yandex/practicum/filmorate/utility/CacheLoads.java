@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.utility;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Loads into an {@link AsyncCache} on the calling thread. Only an empty future is installed inside the
+ * cache's map lock and the loader runs after the lock is released, so a blocking load does not pin a
+ * virtual thread, while concurrent misses for the same key still wait for that one load.
+ */
+public final class CacheLoads {
+    private CacheLoads() {
+    }
+
+    public static <K, V> V get(AsyncCache<K, V> cache, K key, Function<K, V> loader) {
+        CompletableFuture<V> loading = new CompletableFuture<>();
+        CompletableFuture<V> cached = cache.get(key, (missing, executor) -> loading);
+        if (cached == loading) {
+            try {
+                loading.complete(loader.apply(key));
+            } catch (RuntimeException ex) {
+                loading.completeExceptionally(ex);
+            }
+        }
+        return await(cached);
+    }
+
+    public static <K, V> Map<K, V> getAll(AsyncCache<K, V> cache, Iterable<K> keys,
+                                          Function<Set<K>, Map<K, V>> loader) {
+        CompletableFuture<Map<K, V>> loading = new CompletableFuture<>();
+        AtomicReference<Set<? extends K>> requested = new AtomicReference<>();
+        CompletableFuture<Map<K, V>> cached = cache.getAll(keys, (missing, executor) -> {
+            requested.set(missing);
+            return loading;
+        });
+        if (requested.get() != null) {
+            try {
+                loading.complete(loader.apply(Set.copyOf(requested.get())));
+            } catch (RuntimeException ex) {
+                loading.completeExceptionally(ex);
+            }
+        }
+        return await(cached);
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+}
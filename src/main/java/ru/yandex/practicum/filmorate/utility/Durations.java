@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.utility;
+
+import org.springframework.boot.convert.DurationStyle;
+import ru.yandex.practicum.filmorate.exception.BadRequestException;
+
+import java.time.Duration;
+
+public final class Durations {
+    private Durations() {
+    }
+
+    /**
+     * Parses a request parameter such as {@code 90m}, {@code 24h} or {@code PT1H30M}.
+     *
+     * @throws BadRequestException if the value is not a duration
+     */
+    public static Duration parse(String parameter, String value) {
+        try {
+            return DurationStyle.detectAndParse(value);
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException(String.format("%s is not a duration: %s", parameter, value));
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.utility;
+
+public interface IdGenerator {
+    long nextId();
+
+    /**
+     * The largest id handed out or skipped past so far.
+     */
+    long lastId();
+
+    /**
+     * Makes sure no id up to {@code id} is handed out again, as after restoring entities that hold them.
+     */
+    void skipPast(long id);
+}
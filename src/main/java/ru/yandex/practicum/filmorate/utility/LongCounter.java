@@ -0,0 +1,160 @@
+package ru.yandex.practicum.filmorate.utility;
+
+/**
+ * Counts occurrences of non-zero long keys in a linear probing table of primitives and picks the
+ * highest counts with a bounded heap. Meant for a single request, so it is not thread-safe.
+ */
+public class LongCounter {
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] counts;
+    private int size;
+
+    public LongCounter() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongCounter(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3L < expectedSize * 4L + 4) {
+            capacity <<= 1;
+        }
+        this.keys = new long[capacity];
+        this.counts = new int[capacity];
+    }
+
+    public void add(long key, int amount) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Zero key is reserved");
+        }
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                counts[slot] += amount;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        counts[slot] = amount;
+        size++;
+        if (size * 4L > keys.length * 3L) {
+            resize();
+        }
+    }
+
+    public void addAll(LongCounter other) {
+        for (int slot = 0; slot < other.keys.length; slot++) {
+            if (other.keys[slot] != 0) {
+                add(other.keys[slot], other.counts[slot]);
+            }
+        }
+    }
+
+    public int get(long key) {
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return counts[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return up to {@code limit} keys ordered by count descending, ties by key ascending
+     */
+    public long[] top(int limit) {
+        int heapSize = 0;
+        int[] heap = new int[Math.min(limit, size)];
+        for (int slot = 0; slot < keys.length && heap.length > 0; slot++) {
+            if (keys[slot] == 0) {
+                continue;
+            }
+            if (heapSize < heap.length) {
+                heap[heapSize] = slot;
+                siftUp(heap, heapSize++);
+            } else if (ranksBefore(slot, heap[0])) {
+                heap[0] = slot;
+                siftDown(heap, heapSize);
+            }
+        }
+        long[] top = new long[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            top[i] = keys[heap[0]];
+            heap[0] = heap[i];
+            siftDown(heap, i);
+        }
+        return top;
+    }
+
+    private boolean ranksBefore(int slot, int other) {
+        return counts[slot] != counts[other] ? counts[slot] > counts[other] : keys[slot] < keys[other];
+    }
+
+    private void siftUp(int[] heap, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!ranksBefore(heap[parent], heap[index])) {
+                return;
+            }
+            swap(heap, parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int heapSize) {
+        int index = 0;
+        while (true) {
+            int child = index * 2 + 1;
+            if (child >= heapSize) {
+                return;
+            }
+            if (child + 1 < heapSize && ranksBefore(heap[child], heap[child + 1])) {
+                child++;
+            }
+            if (!ranksBefore(heap[index], heap[child])) {
+                return;
+            }
+            swap(heap, index, child);
+            index = child;
+        }
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = slot(oldKeys[i], mask);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private static void swap(int[] heap, int first, int second) {
+        int value = heap[first];
+        heap[first] = heap[second];
+        heap[second] = value;
+    }
+
+    private static int slot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
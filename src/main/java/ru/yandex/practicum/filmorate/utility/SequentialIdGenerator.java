@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.utility;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out 1, 2, 3... so ids of one entity type stay dense and can be used as array offsets.
+ */
+public class SequentialIdGenerator implements IdGenerator {
+    private final AtomicLong lastId;
+
+    public SequentialIdGenerator() {
+        this(0);
+    }
+
+    public SequentialIdGenerator(long lastId) {
+        this.lastId = new AtomicLong(lastId);
+    }
+
+    @Override
+    public long nextId() {
+        return lastId.incrementAndGet();
+    }
+
+    @Override
+    public long lastId() {
+        return lastId.get();
+    }
+
+    @Override
+    public void skipPast(long id) {
+        lastId.accumulateAndGet(id, Math::max);
+    }
+}
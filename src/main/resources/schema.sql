@@ -0,0 +1,42 @@
+CREATE TABLE IF NOT EXISTS films (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    description VARCHAR(200),
+    release_date DATE,
+    duration_seconds BIGINT,
+    likes_count BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE INDEX IF NOT EXISTS films_release_date_idx ON films (release_date);
+
+CREATE INDEX IF NOT EXISTS films_duration_idx ON films (duration_seconds);
+
+CREATE INDEX IF NOT EXISTS films_likes_count_idx ON films (likes_count DESC, id);
+
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email VARCHAR(255),
+    login VARCHAR(255) NOT NULL,
+    name VARCHAR(255),
+    birthday DATE
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS users_login_idx ON users (login);
+
+CREATE UNIQUE INDEX IF NOT EXISTS users_email_idx ON users (email);
+
+CREATE TABLE IF NOT EXISTS film_likes (
+    film_id BIGINT NOT NULL REFERENCES films (id) ON DELETE CASCADE,
+    user_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    PRIMARY KEY (film_id, user_id)
+);
+
+CREATE INDEX IF NOT EXISTS film_likes_user_idx ON film_likes (user_id);
+
+CREATE TABLE IF NOT EXISTS friendships (
+    user_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    friend_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    PRIMARY KEY (user_id, friend_id)
+);
+
+CREATE INDEX IF NOT EXISTS friendships_friend_idx ON friendships (friend_id);
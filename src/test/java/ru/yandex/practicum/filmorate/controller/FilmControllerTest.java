@@ -1,12 +1,15 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
@@ -17,11 +20,14 @@ import ru.yandex.practicum.filmorate.storage.InMemoryStorageCRUD;
 
 import java.time.Duration;
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 
@@ -37,6 +43,9 @@ class FilmControllerTest {
     @Autowired
     private InMemoryStorageCRUD<User> userStorage;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Test
     @DisplayName("Film creation - ok scenario")
     void filmCreationOk() throws Exception {
@@ -201,9 +210,9 @@ class FilmControllerTest {
 
         User user = User.builder()
                 .name("")
-                .email("john@doe.com")
+                .email("filmLikeAndUnlikeIsOk@doe.com")
                 .birthday(LocalDate.of(1990, 9, 27))
-                .login("JDoe")
+                .login("filmLikeAndUnlikeIsOk")
                 .build();
 
         Film createdFilm = filmStorage.createEntityInStorage(film);
@@ -253,9 +262,9 @@ class FilmControllerTest {
     void filmLikeFilmNotFound() throws Exception {
         User user = User.builder()
                 .name("")
-                .email("john@doe.com")
+                .email("filmLikeFilmNotFound@doe.com")
                 .birthday(LocalDate.of(1990, 9, 27))
-                .login("JDoe")
+                .login("filmLikeFilmNotFound")
                 .build();
 
         User createdUser = userStorage.createEntityInStorage(user);
@@ -265,4 +274,283 @@ class FilmControllerTest {
                 .andDo(print())
                 .andExpect(status().isNotFound());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Popular films - ordered by likes count")
+    void popularFilmsOrderedByLikes() throws Exception {
+        Film film = Film.builder()
+                .name("Popular film")
+                .description("Test film description")
+                .releaseDate(LocalDate.of(1990, 9, 27))
+                .duration(Duration.ofMinutes(120))
+                .build();
+
+        User user = User.builder()
+                .name("")
+                .email("popularFilmsOrderedByLikes@doe.com")
+                .birthday(LocalDate.of(1990, 9, 27))
+                .login("popularFilmsOrderedByLikes")
+                .build();
+
+        Film lessPopularFilm = filmStorage.createEntityInStorage(film);
+        Film popularFilm = filmStorage.createEntityInStorage(film);
+        User userOne = createUserAs(user, "popularOne");
+        User userTwo = createUserAs(user, "popularTwo");
+
+        this.mockMvc.perform(put(String.format("/films/%d/like/%d", lessPopularFilm.getId(), userOne.getId())))
+                .andExpect(status().isOk());
+        this.mockMvc.perform(put(String.format("/films/%d/like/%d", popularFilm.getId(), userOne.getId())))
+                .andExpect(status().isOk());
+        this.mockMvc.perform(put(String.format("/films/%d/like/%d", popularFilm.getId(), userTwo.getId())))
+                .andExpect(status().isOk());
+
+        MvcResult result = this.mockMvc.perform(get("/films/popular?count=2"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andReturn();
+
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.findAndRegisterModules();
+        Film[] popular = mapper.readValue(result.getResponse().getContentAsString(), Film[].class);
+
+        Assertions.assertEquals(2, popular.length);
+        Assertions.assertEquals(popularFilm.getId(), popular[0].getId());
+        Assertions.assertEquals(lessPopularFilm.getId(), popular[1].getId());
+    }
+
+    @Test
+    @DisplayName("Films stream - one JSON document per line")
+    void filmsStreamAsNdjson() throws Exception {
+        Film film = Film.builder()
+                .name("Streamed film")
+                .description("Test film description")
+                .releaseDate(LocalDate.of(1990, 9, 27))
+                .duration(Duration.ofMinutes(120))
+                .build();
+        filmStorage.createEntityInStorage(film);
+        filmStorage.createEntityInStorage(film);
+
+        MvcResult asyncResult = this.mockMvc.perform(get("/films").accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = this.mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.findAndRegisterModules();
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+
+        Assertions.assertEquals(filmStorage.readAllEntityFromStorage().size(), lines.length);
+        for (String line : lines) {
+            Assertions.assertNotNull(mapper.readValue(line, Film.class).getId());
+        }
+    }
+
+    @Test
+    @DisplayName("Films list - plain JSON array by default")
+    void filmsListAsJsonArray() throws Exception {
+        MvcResult result = this.mockMvc.perform(get("/films"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        Assertions.assertTrue(result.getResponse().getContentAsString().startsWith("["));
+    }
+
+    @Test
+    @DisplayName("Film creation - service and storage operations are timed")
+    void filmCreationIsTimed() throws Exception {
+        Film film = Film.builder()
+                .name("Timed film")
+                .description("Test film description")
+                .releaseDate(LocalDate.of(1990, 9, 27))
+                .duration(Duration.ofMinutes(120))
+                .build();
+
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.findAndRegisterModules();
+
+        this.mockMvc.perform(post("/films")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(film)))
+                .andExpect(status().isOk());
+
+        Timer serviceTimer = meterRegistry.find("filmorate.service")
+                .tag("operation", "createFilm")
+                .timer();
+        Timer storageTimer = meterRegistry.find("filmorate.storage")
+                .tag("operation", "createEntityInStorage")
+                .timer();
+
+        Assertions.assertNotNull(serviceTimer);
+        Assertions.assertNotNull(storageTimer);
+        Assertions.assertTrue(serviceTimer.count() > 0);
+        Assertions.assertTrue(storageTimer.count() > 0);
+        Assertions.assertNull(meterRegistry.find("filmorate.service").tag("component", "TrendingProperties").timer());
+        Assertions.assertNotNull(meterRegistry.find("filmorate.films").gauge());
+    }
+
+    @Test
+    @DisplayName("Popular films - ETag answers 304 until a like changes")
+    void popularFilmsConditionalRequest() throws Exception {
+        Film film = Film.builder()
+                .name("Conditional film")
+                .description("Test film description")
+                .releaseDate(LocalDate.of(1990, 9, 27))
+                .duration(Duration.ofMinutes(120))
+                .build();
+        User user = User.builder()
+                .name("")
+                .email("popularFilmsConditionalRequest@doe.com")
+                .birthday(LocalDate.of(1990, 9, 27))
+                .login("popularFilmsConditionalRequest")
+                .build();
+        Film created = filmStorage.createEntityInStorage(film);
+        User liker = userStorage.createEntityInStorage(user);
+
+        MvcResult first = this.mockMvc.perform(get("/films/popular?count=1000"))
+                .andExpect(status().isOk())
+                .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        Assertions.assertNotNull(etag);
+
+        this.mockMvc.perform(get("/films/popular?count=1000").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        this.mockMvc.perform(put(String.format("/films/%d/like/%d", created.getId(), liker.getId())))
+                .andExpect(status().isOk());
+
+        MvcResult changed = this.mockMvc.perform(get("/films/popular?count=1000")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn();
+        Assertions.assertNotEquals(etag, changed.getResponse().getHeader(HttpHeaders.ETAG));
+        this.mockMvc.perform(get("/films/popular?count=1001"))
+                .andExpect(status().isBadRequest());
+
+        this.mockMvc.perform(delete(String.format("/films/%d/like/%d", created.getId(), liker.getId())))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Trending films - liked film listed until the like is withdrawn")
+    void trendingFilms() throws Exception {
+        Film film = Film.builder()
+                .name("Trending film")
+                .description("Test film description")
+                .releaseDate(LocalDate.of(1990, 9, 27))
+                .duration(Duration.ofMinutes(120))
+                .build();
+        User user = User.builder()
+                .name("")
+                .email("trendingFilms@doe.com")
+                .birthday(LocalDate.of(1990, 9, 27))
+                .login("trendingFilms")
+                .build();
+        Film created = filmStorage.createEntityInStorage(film);
+        User liker = userStorage.createEntityInStorage(user);
+        String like = String.format("/films/%d/like/%d", created.getId(), liker.getId());
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.findAndRegisterModules();
+
+        this.mockMvc.perform(put(like))
+                .andExpect(status().isOk());
+        MvcResult trending = this.mockMvc.perform(get("/films/trending?window=1h&count=1000"))
+                .andExpect(status().isOk())
+                .andReturn();
+        Assertions.assertTrue(Arrays.stream(mapper.readValue(trending.getResponse().getContentAsString(), Film[].class))
+                .anyMatch(listed -> listed.getId().equals(created.getId())));
+
+        this.mockMvc.perform(delete(like))
+                .andExpect(status().isOk());
+        trending = this.mockMvc.perform(get("/films/trending?count=1000"))
+                .andExpect(status().isOk())
+                .andReturn();
+        Assertions.assertTrue(Arrays.stream(mapper.readValue(trending.getResponse().getContentAsString(), Film[].class))
+                .noneMatch(listed -> listed.getId().equals(created.getId())));
+
+        this.mockMvc.perform(get("/films/trending?window=5h"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Film search - filters by name and release date, rejects bad criteria")
+    void filmSearch() throws Exception {
+        Film older = Film.builder()
+                .name("Quixotic Voyage")
+                .description("Test film description")
+                .releaseDate(LocalDate.of(1975, 5, 1))
+                .duration(Duration.ofMinutes(90))
+                .build();
+        Film newer = Film.builder()
+                .name("Quixotic Return")
+                .description("Test film description")
+                .releaseDate(LocalDate.of(1985, 5, 1))
+                .duration(Duration.ofMinutes(150))
+                .build();
+        Film createdOlder = filmStorage.createEntityInStorage(older);
+        Film createdNewer = filmStorage.createEntityInStorage(newer);
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.findAndRegisterModules();
+
+        MvcResult result = this.mockMvc.perform(get("/films/search?name=XOTIC&sort=date"))
+                .andExpect(status().isOk())
+                .andReturn();
+        Assertions.assertEquals(List.of(createdNewer.getId(), createdOlder.getId()),
+                Arrays.stream(mapper.readValue(result.getResponse().getContentAsString(), Film[].class))
+                        .map(Film::getId).toList());
+
+        result = this.mockMvc.perform(get("/films/search?prefix=quixotic&releasedTo=1980-01-01&maxDuration=2h"))
+                .andExpect(status().isOk())
+                .andReturn();
+        Assertions.assertEquals(List.of(createdOlder.getId()),
+                Arrays.stream(mapper.readValue(result.getResponse().getContentAsString(), Film[].class))
+                        .map(Film::getId).toList());
+
+        this.mockMvc.perform(get("/films/search?name=qu"))
+                .andExpect(status().isBadRequest());
+        this.mockMvc.perform(get("/films/search?sort=rating"))
+                .andExpect(status().isBadRequest());
+        this.mockMvc.perform(get("/films/search?minDuration=long"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Film deletion - gone from popular, trending and liked films")
+    void filmDeletion() throws Exception {
+        Film film = filmStorage.createEntityInStorage(Film.builder()
+                .name("Deleted film")
+                .description("Test film description")
+                .releaseDate(LocalDate.of(1990, 9, 27))
+                .duration(Duration.ofMinutes(120))
+                .build());
+        User liker = createUserAs(User.builder().name("").birthday(LocalDate.of(1990, 9, 27)).build(),
+                "filmDeletionLiker");
+        this.mockMvc.perform(put(String.format("/films/%d/like/%d", film.getId(), liker.getId())))
+                .andExpect(status().isOk());
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.findAndRegisterModules();
+
+        this.mockMvc.perform(delete(String.format("/films/%d", film.getId())))
+                .andExpect(status().isOk());
+
+        this.mockMvc.perform(get(String.format("/films/%d", film.getId())))
+                .andExpect(status().isNotFound());
+        this.mockMvc.perform(delete(String.format("/films/%d", film.getId())))
+                .andExpect(status().isNotFound());
+        for (String listing : List.of("/films/popular?count=1000", "/films/trending?window=1h&count=1000",
+                String.format("/users/%d/likes", liker.getId()))) {
+            MvcResult result = this.mockMvc.perform(get(listing))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            Assertions.assertTrue(Arrays.stream(mapper.readValue(result.getResponse().getContentAsString(), Film[].class))
+                    .noneMatch(listed -> listed.getId().equals(film.getId())), listing);
+        }
+    }
+
+    private User createUserAs(User user, String login) {
+        user.setLogin(login);
+        user.setEmail(login + "@doe.com");
+        return userStorage.createEntityInStorage(user);
+    }
+}
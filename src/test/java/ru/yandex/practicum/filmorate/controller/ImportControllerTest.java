@@ -0,0 +1,153 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.dto.ImportReportDto;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ImportControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private FilmStorage filmStorage;
+
+    @Autowired
+    private UserStorage userStorage;
+
+    @Test
+    @DisplayName("Film import - invalid lines are reported, the rest is stored")
+    void filmImportPartialFailure() throws Exception {
+        long before = filmStorage.countEntitiesInStorage();
+        String body = mapper.writeValueAsString(film("Imported first")) + "\n"
+                + mapper.writeValueAsString(film("")) + "\n"
+                + "{not json\n"
+                + mapper.writeValueAsString(film("Imported second")) + "\n";
+
+        ImportReportDto report = upload("/import/films", NdjsonStreamer.APPLICATION_NDJSON_VALUE, body);
+
+        Assertions.assertEquals(2, report.getAccepted());
+        Assertions.assertEquals(2, report.getRejected());
+        Assertions.assertEquals(2, report.getErrors().get(0).getLine());
+        Assertions.assertEquals("Specify name field for the film", report.getErrors().get(0).getMessage());
+        Assertions.assertEquals(3, report.getErrors().get(1).getLine());
+        Assertions.assertEquals(before + 2, filmStorage.countEntitiesInStorage());
+    }
+
+    @Test
+    @DisplayName("User import - csv with a header")
+    void userImportCsv() throws Exception {
+        String body = "email,login,name,birthday\n"
+                + "csv1@mail.ru,csvFirst,First,1990-01-01\n"
+                + "csv2@mail.ru,csv second,Second,1990-01-01\n";
+
+        ImportReportDto report = upload("/import/users", ImportController.TEXT_CSV_VALUE, body);
+
+        Assertions.assertEquals(1, report.getAccepted());
+        Assertions.assertEquals(1, report.getRejected());
+        Assertions.assertEquals(3, report.getErrors().get(0).getLine());
+    }
+
+    @Test
+    @DisplayName("User import - taken logins are rejected, the rest is stored")
+    void userImportTakenLogins() throws Exception {
+        userStorage.createEntityInStorage(user("bulkTaken"));
+        String body = "{\"login\":\"bulkTaken\",\"email\":\"bulkTakenAgain@mail.ru\"}\n"
+                + "{\"login\":\"bulkFresh\",\"email\":\"bulkFresh@mail.ru\"}\n"
+                + "{\"login\":\"bulkFreshAgain\",\"email\":\"bulkFresh@mail.ru\"}\n";
+
+        ImportReportDto report = upload("/import/users", NdjsonStreamer.APPLICATION_NDJSON_VALUE, body);
+
+        Assertions.assertEquals(1, report.getAccepted());
+        Assertions.assertEquals(2, report.getRejected());
+        Assertions.assertEquals(1, report.getErrors().get(0).getLine());
+        Assertions.assertEquals(3, report.getErrors().get(1).getLine());
+        Assertions.assertEquals("bulkFresh@mail.ru", userStorage.readUserByLoginFromStorage("bulkFresh").getEmail());
+    }
+
+    @Test
+    @DisplayName("Like import - pairs with missing ids are rejected")
+    void likeImportMissingIds() throws Exception {
+        Film film = filmStorage.createEntityInStorage(film("Bulk liked"));
+        User first = userStorage.createEntityInStorage(user("bulkLikeFirst"));
+        User second = userStorage.createEntityInStorage(user("bulkLikeSecond"));
+        String body = "filmId,userId\r\n"
+                + film.getId() + "," + first.getId() + "\r\n"
+                + film.getId() + "," + Long.MAX_VALUE / 10 + "\r\n"
+                + film.getId() + ",abc\r\n"
+                + film.getId() + "," + second.getId() + "\r\n";
+
+        ImportReportDto report = upload("/import/likes", ImportController.TEXT_CSV_VALUE, body);
+
+        Assertions.assertEquals(2, report.getAccepted());
+        Assertions.assertEquals(2, report.getRejected());
+        Assertions.assertEquals(3, report.getErrors().get(0).getLine());
+        Assertions.assertEquals(4, report.getErrors().get(1).getLine());
+        Assertions.assertEquals(2, filmStorage.readEntityFromStorage(film.getId()).getLikes().size());
+    }
+
+    @Test
+    @DisplayName("Friendship import - ndjson pairs")
+    void friendshipImportNdjson() throws Exception {
+        User first = userStorage.createEntityInStorage(user("bulkFriendFirst"));
+        User second = userStorage.createEntityInStorage(user("bulkFriendSecond"));
+        String body = "{\"userId\":" + first.getId() + ",\"friendId\":" + second.getId() + "}\n"
+                + "{\"userId\":" + first.getId() + "}\n";
+
+        ImportReportDto report = upload("/import/friendships", NdjsonStreamer.APPLICATION_NDJSON_VALUE, body);
+
+        Assertions.assertEquals(1, report.getAccepted());
+        Assertions.assertEquals(1, report.getRejected());
+        Assertions.assertEquals(2, report.getErrors().get(0).getLine());
+        Assertions.assertTrue(userStorage.readEntityFromStorage(second.getId()).getFriends().contains(first.getId()));
+    }
+
+    private ImportReportDto upload(String path, String contentType, String body) throws Exception {
+        String response = mockMvc.perform(post(path)
+                        .contentType(MediaType.parseMediaType(contentType))
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return mapper.readValue(response, ImportReportDto.class);
+    }
+
+    private static Film film(String name) {
+        return Film.builder()
+                .name(name)
+                .description("Imported film")
+                .releaseDate(LocalDate.of(1990, 9, 27))
+                .duration(Duration.ofMinutes(100))
+                .build();
+    }
+
+    private static User user(String login) {
+        return User.builder()
+                .login(login)
+                .email(login + "@mail.ru")
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build();
+    }
+}
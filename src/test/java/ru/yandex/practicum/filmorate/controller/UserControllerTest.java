@@ -10,14 +10,18 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.InMemoryStorageCRUD;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.HashSet;
+import java.util.Set;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 
@@ -30,14 +34,17 @@ class UserControllerTest {
     @Autowired
     private InMemoryStorageCRUD<User> userStorage;
 
+    @Autowired
+    private InMemoryStorageCRUD<Film> filmStorage;
+
     @Test
     @DisplayName("User creation - ok scenario")
     void userCreationOk() throws Exception {
         User user = User.builder()
                 .name("John Doe")
-                .email("john@doe.com")
+                .email("userCreationOk@doe.com")
                 .birthday(LocalDate.of(1990, 9, 27))
-                .login("JDoe")
+                .login("userCreationOk")
                 .build();
 
         ObjectMapper mapper = new ObjectMapper();
@@ -57,7 +64,7 @@ class UserControllerTest {
     void userCreationEmptyLogin() throws Exception {
         User user = User.builder()
                 .name("John Doe")
-                .email("john@doe.com")
+                .email("userCreationEmptyLogin@doe.com")
                 .birthday(LocalDate.of(1990, 9, 27))
                 .login("")
                 .build();
@@ -81,7 +88,7 @@ class UserControllerTest {
                 .name("John Doe")
                 .email("john_doe.com")
                 .birthday(LocalDate.of(1990, 9, 27))
-                .login("Jdoe")
+                .login("userCreationWrongEmail")
                 .build();
 
         ObjectMapper mapper = new ObjectMapper();
@@ -101,7 +108,7 @@ class UserControllerTest {
     void userCreationSpaceInLogin() throws Exception {
         User user = User.builder()
                 .name("John Doe")
-                .email("john@doe.com")
+                .email("userCreationSpaceInLogin@doe.com")
                 .birthday(LocalDate.of(1990, 9, 27))
                 .login("J doe")
                 .build();
@@ -123,9 +130,9 @@ class UserControllerTest {
     void userCreationBirthdateInFuture() throws Exception {
         User user = User.builder()
                 .name("John Doe")
-                .email("john@doe.com")
+                .email("userCreationBirthdateInFuture@doe.com")
                 .birthday(LocalDate.of(3900, 9, 27))
-                .login("Jdoe")
+                .login("userCreationBirthdateInFuture")
                 .build();
 
         ObjectMapper mapper = new ObjectMapper();
@@ -145,9 +152,9 @@ class UserControllerTest {
     void userEmptyName() throws Exception {
         User user = User.builder()
                 .name("")
-                .email("john@doe.com")
+                .email("userEmptyName@doe.com")
                 .birthday(LocalDate.of(1990, 9, 27))
-                .login("JDoe")
+                .login("userEmptyName")
                 .build();
 
         ObjectMapper mapper = new ObjectMapper();
@@ -165,7 +172,7 @@ class UserControllerTest {
         String content = result.getResponse().getContentAsString();
         User createdUser = mapper.readValue(content, User.class);
 
-        Assert.assertEquals("JDoe", createdUser.getName());
+        Assert.assertEquals("userEmptyName", createdUser.getName());
     }
 
     @Test
@@ -173,9 +180,9 @@ class UserControllerTest {
     void updateIsOk() throws Exception {
         User user = User.builder()
                 .name("")
-                .email("john@doe.com")
+                .email("updateIsOk@doe.com")
                 .birthday(LocalDate.of(1990, 9, 27))
-                .login("JDoe")
+                .login("updateIsOk")
                 .build();
 
         ObjectMapper mapper = new ObjectMapper();
@@ -215,9 +222,9 @@ class UserControllerTest {
         User user = User.builder()
                 .id(12345L)
                 .name("")
-                .email("john@doe.com")
+                .email("updateNotFound@doe.com")
                 .birthday(LocalDate.of(1990, 9, 27))
-                .login("JDoe")
+                .login("updateNotFound")
                 .build();
 
         ObjectMapper mapper = new ObjectMapper();
@@ -236,9 +243,9 @@ class UserControllerTest {
     void userAddAndRemoveFriendIsOk() throws Exception {
         User userOne = User.builder()
                 .name("")
-                .email("john@doe.com")
+                .email("userAddAndRemoveFriendIsOk@doe.com")
                 .birthday(LocalDate.of(1990, 9, 27))
-                .login("JDoe")
+                .login("userAddAndRemoveFriendIsOk")
                 .friends(new HashSet<>())
                 .build();
 
@@ -277,9 +284,9 @@ class UserControllerTest {
     void userAddFriendNotFound() throws Exception {
         User userOne = User.builder()
                 .name("")
-                .email("john@doe.com")
+                .email("userAddFriendNotFound@doe.com")
                 .birthday(LocalDate.of(1990, 9, 27))
-                .login("JDoe")
+                .login("userAddFriendNotFound")
                 .friends(new HashSet<>())
                 .build();
 
@@ -296,9 +303,9 @@ class UserControllerTest {
     void userDeleteFriendNotFound() throws Exception {
         User userOne = User.builder()
                 .name("")
-                .email("john@doe.com")
+                .email("userDeleteFriendNotFound@doe.com")
                 .birthday(LocalDate.of(1990, 9, 27))
-                .login("JDoe")
+                .login("userDeleteFriendNotFound")
                 .friends(new HashSet<>())
                 .build();
 
@@ -309,4 +316,218 @@ class UserControllerTest {
                 .andDo(print())
                 .andExpect(status().isNotFound());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Users page - keyset pagination by id")
+    void usersPageAfterId() throws Exception {
+        User user = User.builder()
+                .name("")
+                .email("usersPageAfterId@doe.com")
+                .birthday(LocalDate.of(1990, 9, 27))
+                .login("usersPageAfterId")
+                .build();
+
+        User first = createUserAs(user, "pageFirst");
+        User second = createUserAs(user, "pageSecond");
+        createUserAs(user, "pageThird");
+
+        MvcResult result = this.mockMvc.perform(get(String.format("/users?after=%d&limit=1", first.getId())))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andReturn();
+
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.findAndRegisterModules();
+        User[] page = mapper.readValue(result.getResponse().getContentAsString(), User[].class);
+
+        Assert.assertEquals(1, page.length);
+        Assert.assertEquals(second.getId(), page[0].getId());
+    }
+
+    @Test
+    @DisplayName("Users page - limit over maximum")
+    void usersPageLimitTooBig() throws Exception {
+        this.mockMvc.perform(get("/users?limit=100000"))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("User friends - friends list and common friends")
+    void userFriendsAndCommonFriends() throws Exception {
+        User user = User.builder()
+                .name("")
+                .email("userFriendsAndCommonFriends@doe.com")
+                .birthday(LocalDate.of(1990, 9, 27))
+                .login("userFriendsAndCommonFriends")
+                .build();
+
+        User userOne = createUserAs(user, "friendsOne");
+        User userTwo = createUserAs(user, "friendsTwo");
+        User commonFriend = createUserAs(user, "friendsCommon");
+        User otherFriend = createUserAs(user, "friendsOther");
+
+        this.mockMvc.perform(put(String.format("/users/%d/friends/%d", userOne.getId(), commonFriend.getId())))
+                .andExpect(status().isOk());
+        this.mockMvc.perform(put(String.format("/users/%d/friends/%d", userOne.getId(), otherFriend.getId())))
+                .andExpect(status().isOk());
+        this.mockMvc.perform(put(String.format("/users/%d/friends/%d", userTwo.getId(), commonFriend.getId())))
+                .andExpect(status().isOk());
+
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.findAndRegisterModules();
+
+        MvcResult result = this.mockMvc.perform(get(String.format("/users/%d/friends", userOne.getId())))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andReturn();
+        User[] friends = mapper.readValue(result.getResponse().getContentAsString(), User[].class);
+        Assert.assertEquals(2, friends.length);
+
+        result = this.mockMvc.perform(get(String.format("/users/%d/friends/common/%d",
+                        userOne.getId(), userTwo.getId())))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andReturn();
+        User[] commonFriends = mapper.readValue(result.getResponse().getContentAsString(), User[].class);
+        Assert.assertEquals(1, commonFriends.length);
+        Assert.assertEquals(commonFriend.getId(), commonFriends[0].getId());
+    }
+
+    @Test
+    @DisplayName("User likes - films liked by the user")
+    void userLikedFilms() throws Exception {
+        User user = userStorage.createEntityInStorage(User.builder()
+                .name("")
+                .email("liker@doe.com")
+                .birthday(LocalDate.of(1990, 9, 27))
+                .login("Liker")
+                .build());
+        Film film = Film.builder()
+                .name("Liked film")
+                .description("Liked film description")
+                .releaseDate(LocalDate.of(1990, 9, 27))
+                .duration(Duration.ofMinutes(120))
+                .build();
+        Film first = filmStorage.createEntityInStorage(film);
+        Film second = filmStorage.createEntityInStorage(film);
+        filmStorage.createEntityInStorage(film);
+
+        this.mockMvc.perform(put(String.format("/films/%d/like/%d", second.getId(), user.getId())))
+                .andExpect(status().isOk());
+        this.mockMvc.perform(put(String.format("/films/%d/like/%d", first.getId(), user.getId())))
+                .andExpect(status().isOk());
+
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.findAndRegisterModules();
+
+        MvcResult result = this.mockMvc.perform(get(String.format("/users/%d/likes", user.getId())))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andReturn();
+        Film[] liked = mapper.readValue(result.getResponse().getContentAsString(), Film[].class);
+        Assert.assertEquals(2, liked.length);
+        Assert.assertEquals(first.getId(), liked[0].getId());
+        Assert.assertEquals(second.getId(), liked[1].getId());
+
+        this.mockMvc.perform(delete(String.format("/films/%d/like/%d", first.getId(), user.getId())))
+                .andExpect(status().isOk());
+        this.mockMvc.perform(delete(String.format("/films/%d/like/%d", second.getId(), user.getId())))
+                .andExpect(status().isOk());
+        this.mockMvc.perform(get(String.format("/users/%d/likes", user.getId())))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[]"));
+        this.mockMvc.perform(get("/users/9999/likes"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("User lookup - by login and email, taken ones answer 409")
+    void userLookupAndUniqueness() throws Exception {
+        User user = User.builder()
+                .name("")
+                .email("lookup@doe.com")
+                .birthday(LocalDate.of(1990, 9, 27))
+                .login("lookup")
+                .build();
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.findAndRegisterModules();
+
+        MvcResult result = this.mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(user)))
+                .andExpect(status().isOk())
+                .andReturn();
+        User created = mapper.readValue(result.getResponse().getContentAsString(), User.class);
+        User other = createUserAs(user, "lookupOther");
+
+        user.setEmail("lookupAgain@doe.com");
+        user.setLogin("lookup");
+        this.mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(user)))
+                .andExpect(status().isConflict());
+        other.setEmail("lookup@doe.com");
+        this.mockMvc.perform(put("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(other)))
+                .andExpect(status().isConflict());
+
+        result = this.mockMvc.perform(get("/users/by-login/lookup"))
+                .andExpect(status().isOk())
+                .andReturn();
+        Assert.assertEquals(created.getId(), mapper.readValue(result.getResponse().getContentAsString(), User.class).getId());
+        result = this.mockMvc.perform(get("/users/by-email/lookupOther@doe.com"))
+                .andExpect(status().isOk())
+                .andReturn();
+        Assert.assertEquals(other.getId(), mapper.readValue(result.getResponse().getContentAsString(), User.class).getId());
+        this.mockMvc.perform(get("/users/by-email/lookupAgain@doe.com"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("User deletion - friendships and likes are removed")
+    void userDeletion() throws Exception {
+        User user = User.builder()
+                .name("")
+                .birthday(LocalDate.of(1990, 9, 27))
+                .build();
+        User deleted = createUserAs(user, "deleted");
+        User friend = createUserAs(user, "deletedFriend");
+        User liker = createUserAs(user, "deletedLiker");
+        Film film = filmStorage.createEntityInStorage(Film.builder()
+                .name("Film of a deleted user")
+                .description("Deleted user film description")
+                .releaseDate(LocalDate.of(1990, 9, 27))
+                .duration(Duration.ofMinutes(120))
+                .build());
+        this.mockMvc.perform(put(String.format("/users/%d/friends/%d", deleted.getId(), friend.getId())))
+                .andExpect(status().isOk());
+        this.mockMvc.perform(put(String.format("/films/%d/like/%d", film.getId(), deleted.getId())))
+                .andExpect(status().isOk());
+        this.mockMvc.perform(put(String.format("/films/%d/like/%d", film.getId(), liker.getId())))
+                .andExpect(status().isOk());
+
+        this.mockMvc.perform(delete(String.format("/users/%d", deleted.getId())))
+                .andExpect(status().isOk());
+
+        this.mockMvc.perform(get(String.format("/users/%d", deleted.getId())))
+                .andExpect(status().isNotFound());
+        this.mockMvc.perform(get(String.format("/users/%d/friends", friend.getId())))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[]"));
+        Assert.assertEquals(Set.of(liker.getId()), filmStorage.readEntityFromStorage(film.getId()).getLikes());
+        this.mockMvc.perform(delete(String.format("/users/%d", deleted.getId())))
+                .andExpect(status().isNotFound());
+        Assert.assertNotEquals(deleted.getId(), createUserAs(user, "deleted").getId());
+
+        this.mockMvc.perform(delete(String.format("/films/%d/like/%d", film.getId(), liker.getId())))
+                .andExpect(status().isOk());
+    }
+
+    private User createUserAs(User user, String login) {
+        user.setLogin(login);
+        user.setEmail(login + "@doe.com");
+        return userStorage.createEntityInStorage(user);
+    }
+}
@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+
+import java.io.IOException;
+
+class SampledBodyStrategyTest {
+    @Test
+    @DisplayName("Sampled body strategy - rates 0 and 1 drop or keep every body")
+    void boundaryRates() throws IOException {
+        HttpRequest request = Mockito.mock(HttpRequest.class);
+        HttpResponse response = Mockito.mock(HttpResponse.class);
+
+        new SampledBodyStrategy(0).process(request);
+        new SampledBodyStrategy(0).process(request, response);
+        new SampledBodyStrategy(1).process(request);
+        new SampledBodyStrategy(1).process(request, response);
+
+        Mockito.verify(request).withoutBody();
+        Mockito.verify(request).withBody();
+        Mockito.verify(response).withoutBody();
+        Mockito.verify(response).withBody();
+    }
+
+    @Test
+    @DisplayName("Sampled body strategy - keeps roughly the configured share of bodies")
+    void partialRate() throws IOException {
+        HttpRequest request = Mockito.mock(HttpRequest.class);
+        SampledBodyStrategy strategy = new SampledBodyStrategy(0.25);
+
+        for (int i = 0; i < 10_000; i++) {
+            strategy.process(request);
+        }
+
+        int kept = Mockito.mockingDetails(request).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("withBody"))
+                .mapToInt(invocation -> 1)
+                .sum();
+        Assertions.assertTrue(kept > 2_000 && kept < 3_000, "kept " + kept);
+    }
+
+    @Test
+    @DisplayName("Sampled body strategy - rejects rates outside 0..1")
+    void invalidRate() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new SampledBodyStrategy(1.5));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new SampledBodyStrategy(-0.1));
+    }
+}
@@ -0,0 +1,150 @@
+package ru.yandex.practicum.filmorate.persistence;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+class PersistenceManagerTest {
+    @TempDir
+    Path directory;
+
+    private PersistenceProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new PersistenceProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory);
+        properties.setFlushInterval(Duration.ofHours(1));
+        properties.setSnapshotInterval(Duration.ofHours(1));
+    }
+
+    @Test
+    @DisplayName("Snapshot and log written after it are recovered on restart")
+    void restoresSnapshotAndLog() throws IOException {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        PersistenceManager manager = new PersistenceManager(properties, filmStorage, userStorage);
+        manager.start();
+
+        User first = userStorage.createEntityInStorage(user("first"));
+        User second = userStorage.createEntityInStorage(user("second"));
+        Film film = filmStorage.createEntityInStorage(film("Before snapshot"));
+        filmStorage.addLikeInStorage(film.getId(), first.getId());
+        manager.snapshot();
+
+        Film later = filmStorage.createEntityInStorage(film("After snapshot"));
+        filmStorage.addLikeInStorage(later.getId(), first.getId());
+        filmStorage.addLikeInStorage(later.getId(), second.getId());
+        userStorage.addFriendInStorage(first.getId(), second.getId());
+        Film renamed = film("Renamed");
+        renamed.setId(film.getId());
+        filmStorage.updateEntityInStorage(renamed);
+        filmStorage.deleteEntityFromStorage(later.getId());
+        manager.stop();
+
+        InMemoryFilmStorage restoredFilms = new InMemoryFilmStorage();
+        InMemoryUserStorage restoredUsers = new InMemoryUserStorage();
+        PersistenceManager restarted = new PersistenceManager(properties, restoredFilms, restoredUsers);
+        restarted.start();
+
+        Assertions.assertEquals(List.of(film.getId()),
+                restoredFilms.readAllEntityFromStorage().stream().map(Film::getId).toList());
+        Film restored = restoredFilms.readEntityFromStorage(film.getId());
+        Assertions.assertEquals("Renamed", restored.getName());
+        Assertions.assertEquals(Set.of(first.getId()), restored.getLikes());
+        Assertions.assertEquals(Set.of(second.getId()),
+                restoredUsers.readEntityFromStorage(first.getId()).getFriends());
+        Assertions.assertEquals(1, restoredFilms.countLikesInStorage());
+
+        Film created = restoredFilms.createEntityInStorage(film("New film"));
+        Assertions.assertTrue(created.getId() > later.getId());
+        restarted.stop();
+    }
+
+    @Test
+    @DisplayName("Ids of entities deleted before a snapshot are not handed out again")
+    void keepsDeletedIdsAfterSnapshot() throws IOException {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        PersistenceManager manager = new PersistenceManager(properties, filmStorage, userStorage);
+        manager.start();
+
+        filmStorage.createEntityInStorage(film("Kept"));
+        Film deletedFilm = filmStorage.createEntityInStorage(film("Deleted"));
+        userStorage.createEntityInStorage(user("kept"));
+        User deletedUser = userStorage.createEntityInStorage(user("deleted"));
+        filmStorage.deleteEntityFromStorage(deletedFilm.getId());
+        userStorage.deleteEntityFromStorage(deletedUser.getId());
+        manager.snapshot();
+        manager.stop();
+
+        InMemoryFilmStorage restoredFilms = new InMemoryFilmStorage();
+        InMemoryUserStorage restoredUsers = new InMemoryUserStorage();
+        PersistenceManager restarted = new PersistenceManager(properties, restoredFilms, restoredUsers);
+        restarted.start();
+
+        Assertions.assertTrue(restoredFilms.createEntityInStorage(film("New")).getId() > deletedFilm.getId());
+        Assertions.assertTrue(restoredUsers.createEntityInStorage(user("new")).getId() > deletedUser.getId());
+        restarted.stop();
+    }
+
+    @Test
+    @DisplayName("Torn record at the end of the log is dropped")
+    void ignoresTornTail() throws IOException {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        PersistenceManager manager = new PersistenceManager(properties, filmStorage, userStorage);
+        manager.start();
+        Film film = filmStorage.createEntityInStorage(film("Durable"));
+        manager.stop();
+
+        Path segment = WriteAheadLog.segments(directory).stream()
+                .map(number -> directory.resolve(String.format("wal-%020d.log", number)))
+                .filter(path -> path.toFile().length() > 0)
+                .findFirst()
+                .orElseThrow();
+        Files.write(segment, new byte[]{0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+        InMemoryFilmStorage restoredFilms = new InMemoryFilmStorage();
+        PersistenceManager restarted = new PersistenceManager(properties, restoredFilms, new InMemoryUserStorage());
+        restarted.start();
+
+        Assertions.assertEquals(1, restoredFilms.countEntitiesInStorage());
+        Assertions.assertEquals("Durable", restoredFilms.readEntityFromStorage(film.getId()).getName());
+        restarted.stop();
+    }
+
+    private static Film film(String name) {
+        return Film.builder()
+                .name(name)
+                .description("Description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(Duration.ofMinutes(90))
+                .build();
+    }
+
+    private static User user(String login) {
+        return User.builder()
+                .login(login)
+                .email(login + "@mail.ru")
+                .name(login)
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build();
+    }
+}
@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+class FriendSuggestionServiceTest {
+    private InMemoryUserStorage userStorage;
+    private FriendSuggestionService friendSuggestionService;
+
+    @BeforeEach
+    void setUp() {
+        userStorage = new InMemoryUserStorage();
+        friendSuggestionService = new FriendSuggestionService(userStorage);
+    }
+
+    @AfterEach
+    void tearDown() {
+        friendSuggestionService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Friend suggestions - ranked by mutual friends, friends excluded")
+    void rankedByMutualFriends() {
+        long user = user("user");
+        long first = user("first");
+        long second = user("second");
+        long third = user("third");
+        long twoMutual = user("twoMutual");
+        long oneMutual = user("oneMutual");
+        connect(user, first, second, third);
+        connect(twoMutual, first, second);
+        connect(oneMutual, third);
+        connect(first, second);
+
+        Assertions.assertEquals(List.of(twoMutual, oneMutual), ids(friendSuggestionService.getFriendSuggestions(user, 10)));
+        Assertions.assertEquals(List.of(twoMutual), ids(friendSuggestionService.getFriendSuggestions(user, 1)));
+        Assertions.assertTrue(friendSuggestionService.getFriendSuggestions(oneMutual, 10).stream()
+                .noneMatch(suggested -> suggested.getId() == third));
+        Assertions.assertThrows(NotFoundException.class, () -> friendSuggestionService.getFriendSuggestions(999L, 10));
+    }
+
+    @Test
+    @DisplayName("Friend suggestions - high-degree user is expanded in parallel")
+    void highDegreeUser() {
+        long hub = user("hub");
+        List<Long> friends = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            long friend = user("friend" + i);
+            connect(hub, friend);
+            friends.add(friend);
+        }
+        long popular = user("popular");
+        long rare = user("rare");
+        for (int i = 0; i < friends.size(); i += 2) {
+            connect(popular, friends.get(i));
+        }
+        connect(rare, friends.get(1), friends.get(3));
+
+        Assertions.assertEquals(List.of(popular, rare), ids(friendSuggestionService.getFriendSuggestions(hub, 10)));
+    }
+
+    private void connect(long userId, long... friendIds) {
+        for (long friendId : friendIds) {
+            userStorage.addFriendInStorage(userId, friendId);
+        }
+    }
+
+    private long user(String login) {
+        return userStorage.createEntityInStorage(User.builder()
+                .name("")
+                .email(login + "@doe.com")
+                .birthday(LocalDate.of(1990, 9, 27))
+                .login(login)
+                .build()).getId();
+    }
+
+    private static List<Long> ids(List<User> users) {
+        return users.stream().map(User::getId).toList();
+    }
+}
@@ -0,0 +1,171 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+class RecommendationServiceTest {
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+    private FilmService filmService;
+    private RecommendationService recommendationService;
+
+    @BeforeEach
+    void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+        UserService userService = new UserService(userStorage);
+        recommendationService = new RecommendationService(filmStorage, userService);
+        filmService = new FilmService(filmStorage, userService,
+                new TrendingService(filmStorage, new TrendingProperties()), recommendationService);
+    }
+
+    @Test
+    @DisplayName("Recommendations - films of the most similar users first")
+    void recommendsFilmsOfSimilarUsers() {
+        long user = user("user");
+        long twin = user("twin");
+        long stranger = user("stranger");
+        long shared = film("Shared");
+        long sharedToo = film("Shared too");
+        long twinOnly = film("Twin only");
+        long strangerOnly = film("Stranger only");
+
+        like(user, shared, sharedToo);
+        like(twin, shared, sharedToo, twinOnly);
+        like(stranger, shared, strangerOnly);
+
+        Assertions.assertEquals(List.of(twinOnly, strangerOnly), ids(recommendationService.getRecommendations(user, 2)));
+        Assertions.assertEquals(List.of(twinOnly), ids(recommendationService.getRecommendations(user, 1)));
+    }
+
+    @Test
+    @DisplayName("Recommendations - refreshed after the user's likes change")
+    void refreshedAfterOwnLikesChange() {
+        long user = user("user");
+        long other = user("other");
+        long first = film("First");
+        long second = film("Second");
+        long third = film("Third");
+        like(other, first, second, third);
+        like(user, third);
+
+        Assertions.assertEquals(List.of(first, second), ids(recommendationService.getRecommendations(user, 2)));
+
+        like(user, first);
+        Assertions.assertEquals(List.of(second), ids(recommendationService.getRecommendations(user, 1)));
+    }
+
+    @Test
+    @DisplayName("Recommendations - refreshed after the user swaps a like for another")
+    void refreshedAfterLikeSwap() {
+        long user = user("user");
+        long first = user("first");
+        long second = user("second");
+        long firstShared = film("First shared");
+        long firstOnly = film("First only");
+        long secondShared = film("Second shared");
+        long secondOnly = film("Second only");
+        like(first, firstShared, firstOnly);
+        like(second, secondShared, secondOnly);
+        like(user, firstShared);
+
+        Assertions.assertEquals(List.of(firstOnly), ids(recommendationService.getRecommendations(user, 1)));
+
+        filmService.removeLikeFromFilm(firstShared, user);
+        like(user, secondShared);
+        Assertions.assertEquals(List.of(secondOnly), ids(recommendationService.getRecommendations(user, 1)));
+    }
+
+    @Test
+    @DisplayName("Recommendations - refreshed after a neighbour's likes change")
+    void refreshedAfterNeighbourLikesChange() {
+        long user = user("user");
+        long former = user("former");
+        long latter = user("latter");
+        long shared = film("Shared");
+        long formerOnly = film("Former only");
+        long latterOnly = film("Latter only");
+        like(user, shared);
+        like(former, shared, formerOnly);
+
+        Assertions.assertEquals(List.of(formerOnly), ids(recommendationService.getRecommendations(user, 1)));
+
+        filmService.removeLikeFromFilm(shared, former);
+        like(latter, shared, latterOnly);
+        Assertions.assertEquals(List.of(latterOnly), ids(recommendationService.getRecommendations(user, 1)));
+    }
+
+    @Test
+    @DisplayName("Recommendations - refreshed after films the neighbours were ranked by are deleted")
+    void refreshedAfterSharedFilmsDeleted() {
+        long user = user("user");
+        long former = user("former");
+        long latter = user("latter");
+        long shared = film("Shared");
+        long sharedToo = film("Shared too");
+        long kept = film("Kept");
+        long formerOnly = film("Former only");
+        long latterOnly = film("Latter only");
+        like(user, shared, sharedToo, kept);
+        like(former, shared, sharedToo, formerOnly);
+        like(latter, kept, latterOnly);
+
+        Assertions.assertEquals(List.of(formerOnly), ids(recommendationService.getRecommendations(user, 1)));
+
+        filmService.deleteFilm(shared);
+        filmService.deleteFilm(sharedToo);
+        Assertions.assertEquals(List.of(latterOnly), ids(recommendationService.getRecommendations(user, 1)));
+    }
+
+    @Test
+    @DisplayName("Recommendations - popular films fill up when there are no similar users")
+    void fallsBackToPopularFilms() {
+        long user = user("user");
+        long other = user("other");
+        long popular = film("Popular");
+        long unrated = film("Unrated");
+        like(other, popular);
+
+        Assertions.assertEquals(List.of(popular, unrated), ids(recommendationService.getRecommendations(user, 5)));
+        Assertions.assertThrows(NotFoundException.class, () -> recommendationService.getRecommendations(999L, 5));
+    }
+
+    private void like(long userId, long... filmIds) {
+        for (long filmId : filmIds) {
+            filmService.addLikeToFilm(filmId, userId);
+        }
+    }
+
+    private long film(String name) {
+        return filmStorage.createEntityInStorage(Film.builder()
+                .name(name)
+                .description("Recommended film")
+                .releaseDate(LocalDate.of(1990, 9, 27))
+                .duration(Duration.ofMinutes(120))
+                .build()).getId();
+    }
+
+    private long user(String login) {
+        return userStorage.createEntityInStorage(User.builder()
+                .name("")
+                .email(login + "@doe.com")
+                .birthday(LocalDate.of(1990, 9, 27))
+                .login(login)
+                .build()).getId();
+    }
+
+    private static List<Long> ids(List<Film> films) {
+        return films.stream().map(Film::getId).toList();
+    }
+}
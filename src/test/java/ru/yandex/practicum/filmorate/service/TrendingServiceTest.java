@@ -0,0 +1,189 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.BadRequestException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+class TrendingServiceTest {
+    private final MutableClock clock = new MutableClock();
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+    private FilmService filmService;
+    private TrendingService trendingService;
+
+    @BeforeEach
+    void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+        TrendingProperties properties = new TrendingProperties();
+        properties.setWindows(List.of(Duration.ofHours(1), Duration.ofHours(24)));
+        trendingService = new TrendingService(filmStorage, properties, clock);
+        UserService userService = new UserService(userStorage);
+        filmService = new FilmService(filmStorage, userService, trendingService,
+                new RecommendationService(filmStorage, userService));
+    }
+
+    @Test
+    @DisplayName("Trending films - ranked by likes inside the window, older likes age out")
+    void rankedInsideWindow() {
+        long first = user("first");
+        long second = user("second");
+        long third = user("third");
+        long classic = film("Classic");
+        long fresh = film("Fresh");
+        like(classic, first, second, third);
+
+        clock.advance(Duration.ofMinutes(90));
+        trendingService.expire();
+        like(fresh, first);
+
+        Assertions.assertEquals(List.of(fresh), ids(trendingService.getTrendingFilms("1h", 10)));
+        Assertions.assertEquals(List.of(classic, fresh), ids(trendingService.getTrendingFilms("24h", 10)));
+        Assertions.assertEquals(List.of(classic), ids(trendingService.getTrendingFilms("PT24H", 1)));
+
+        clock.advance(Duration.ofHours(23));
+        trendingService.expire();
+        Assertions.assertEquals(List.of(fresh), ids(trendingService.getTrendingFilms("24h", 10)));
+        Assertions.assertEquals(List.of(classic, fresh), ids(filmService.getTopRatedFilms(10)));
+
+        clock.advance(Duration.ofHours(1));
+        trendingService.expire();
+        Assertions.assertEquals(List.of(), ids(trendingService.getTrendingFilms("24h", 10)));
+    }
+
+    @Test
+    @DisplayName("Trending films - unlikes withdraw recent likes only, repeated likes count once")
+    void unlikesAndRepeatedLikes() {
+        long first = user("first");
+        long second = user("second");
+        long old = film("Old");
+        long recent = film("Recent");
+        like(old, first);
+
+        clock.advance(Duration.ofDays(2));
+        like(recent, first, second);
+        like(recent, first);
+        filmService.removeLikeFromFilm(old, first);
+        filmService.removeLikeFromFilm(recent, second);
+        like(old, first);
+
+        Assertions.assertEquals(List.of(old, recent), ids(trendingService.getTrendingFilms("1h", 10)));
+        filmService.removeLikesOfUser(first);
+        Assertions.assertEquals(List.of(), ids(trendingService.getTrendingFilms("24h", 10)));
+    }
+
+    @Test
+    @DisplayName("Trending films - concurrent likes and unlikes leave the storage's count")
+    void concurrentLikesAndUnlikes() throws InterruptedException {
+        long film = film("Contested");
+        long[] users = new long[8];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = user("contender" + i);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(users.length);
+        for (int thread = 0; thread < users.length; thread++) {
+            int offset = thread;
+            executor.execute(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    long userId = users[(offset + i) % users.length];
+                    if (i % 2 == 0) {
+                        filmService.addLikeToFilm(film, userId);
+                    } else {
+                        filmService.removeLikeFromFilm(film, userId);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        for (long userId : users) {
+            filmService.removeLikeFromFilm(film, userId);
+        }
+        Assertions.assertEquals(List.of(), ids(trendingService.getTrendingFilms("1h", 10)));
+        long reference = film("Reference");
+        like(film, users);
+        like(reference, users);
+        Assertions.assertEquals(List.of(film, reference), ids(trendingService.getTrendingFilms("1h", 10)));
+    }
+
+    @Test
+    @DisplayName("Trending films - only tracked windows are accepted")
+    void unknownWindow() {
+        Assertions.assertThrows(BadRequestException.class, () -> trendingService.getTrendingFilms("5h", 10));
+        Assertions.assertThrows(BadRequestException.class, () -> trendingService.getTrendingFilms("day", 10));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            TrendingProperties properties = new TrendingProperties();
+            properties.setWindows(List.of(Duration.ofSeconds(90)));
+            new TrendingService(filmStorage, properties, clock);
+        });
+    }
+
+    private void like(long filmId, long... userIds) {
+        for (long userId : userIds) {
+            filmService.addLikeToFilm(filmId, userId);
+        }
+    }
+
+    private long film(String name) {
+        return filmStorage.createEntityInStorage(Film.builder()
+                .name(name)
+                .description("Description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(Duration.ofMinutes(100))
+                .build()).getId();
+    }
+
+    private long user(String login) {
+        return userStorage.createEntityInStorage(User.builder()
+                .email(login + "@mail.ru")
+                .login(login)
+                .name(login)
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build()).getId();
+    }
+
+    private static List<Long> ids(List<Film> films) {
+        return films.stream().map(Film::getId).toList();
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:30Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
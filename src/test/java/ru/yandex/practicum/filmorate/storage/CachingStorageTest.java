@@ -0,0 +1,97 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class CachingStorageTest {
+    private static final int THREADS = 8;
+
+    private SlowFilmStorage backend;
+    private CachingFilmStorage filmStorage;
+
+    @BeforeEach
+    void setUp() {
+        backend = new SlowFilmStorage();
+        filmStorage = new CachingFilmStorage(backend, Caffeine.newBuilder().maximumSize(100).recordStats().buildAsync());
+    }
+
+    @Test
+    @DisplayName("Concurrent misses for one film - single backend load")
+    void concurrentMissesLoadOnce() throws Exception {
+        Film film = backend.createEntityInStorage(film("Cached"));
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Film>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return filmStorage.readEntityFromStorage(film.getId());
+                }));
+            }
+            start.countDown();
+            for (Future<Film> result : results) {
+                Assertions.assertEquals(film.getId(), result.get().getId());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertEquals(1, backend.loads.get());
+        Assertions.assertEquals(1, filmStorage.getCache().stats().missCount());
+    }
+
+    @Test
+    @DisplayName("Update and like drop the cached film")
+    void writesInvalidate() {
+        Film film = backend.createEntityInStorage(film("Before"));
+        filmStorage.readEntityFromStorage(film.getId());
+
+        Film renamed = film("After");
+        renamed.setId(film.getId());
+        filmStorage.updateEntityInStorage(renamed);
+        Assertions.assertEquals("After", filmStorage.readEntityFromStorage(film.getId()).getName());
+
+        filmStorage.addLikeInStorage(film.getId(), 1L);
+        filmStorage.readEntityFromStorage(film.getId());
+        Assertions.assertEquals(3, backend.loads.get());
+    }
+
+    private static Film film(String name) {
+        return Film.builder()
+                .name(name)
+                .description("Cached film")
+                .releaseDate(LocalDate.of(1990, 9, 27))
+                .duration(Duration.ofMinutes(120))
+                .build();
+    }
+
+    private static class SlowFilmStorage extends InMemoryFilmStorage {
+        private final AtomicInteger loads = new AtomicInteger();
+
+        @Override
+        public Film readEntityFromStorage(Long id) {
+            loads.incrementAndGet();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return super.readEntityFromStorage(id);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSearch;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+class FilmSearchIndexTest {
+    private static final String[] WORDS = {"Star", "Wars", "Return", "Night", "Day", "Dark", "Knight", "Matrix"};
+
+    @Test
+    @DisplayName("Film search - indexed results match a full scan")
+    void matchesFullScan() {
+        for (FilmStorage filmStorage : List.of(new InMemoryFilmStorage(), new OffHeapFilmStorage())) {
+            Random random = new Random(42);
+            for (int i = 0; i < 2_000; i++) {
+                Film film = filmStorage.createEntityInStorage(randomFilm(random));
+                for (int like = random.nextInt(5); like > 0; like--) {
+                    filmStorage.addLikeInStorage(film.getId(), 1L + random.nextInt(50));
+                }
+            }
+            for (int i = 0; i < 300; i++) {
+                Film film = randomFilm(random);
+                film.setId(1L + random.nextInt(2_000));
+                filmStorage.updateEntityInStorage(film);
+            }
+            for (int i = 0; i < 200; i++) {
+                filmStorage.deleteEntityFromStorage(1L + i * 10);
+            }
+
+            for (int i = 0; i < 500; i++) {
+                FilmSearch search = randomSearch(random);
+                Assertions.assertEquals(ids(fullScan(filmStorage, search)),
+                        ids(filmStorage.searchFilmsInStorage(search)), search.toString());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Film search - follows renames, date changes and deletes")
+    void followsChanges() {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        Film film = filmStorage.createEntityInStorage(film("The Dark Knight", LocalDate.of(2008, 7, 18)));
+        FilmSearch byName = FilmSearch.builder().name("dark").build();
+        FilmSearch byPrefix = FilmSearch.builder().namePrefix("the d").build();
+        FilmSearch in2008 = FilmSearch.builder()
+                .releasedFrom(LocalDate.of(2008, 1, 1))
+                .releasedTo(LocalDate.of(2008, 12, 31))
+                .sort(FilmSearch.Sort.DATE)
+                .build();
+
+        Assertions.assertEquals(List.of(film.getId()), ids(filmStorage.searchFilmsInStorage(byName)));
+        Assertions.assertEquals(List.of(film.getId()), ids(filmStorage.searchFilmsInStorage(byPrefix)));
+        Assertions.assertEquals(List.of(film.getId()), ids(filmStorage.searchFilmsInStorage(in2008)));
+
+        Film changed = film("Inception", LocalDate.of(2010, 7, 16));
+        changed.setId(film.getId());
+        filmStorage.updateEntityInStorage(changed);
+        Assertions.assertEquals(List.of(), filmStorage.searchFilmsInStorage(byName));
+        Assertions.assertEquals(List.of(), filmStorage.searchFilmsInStorage(byPrefix));
+        Assertions.assertEquals(List.of(), filmStorage.searchFilmsInStorage(in2008));
+        Assertions.assertEquals(List.of(film.getId()),
+                ids(filmStorage.searchFilmsInStorage(FilmSearch.builder().name("CEPT").build())));
+
+        filmStorage.deleteEntityFromStorage(film.getId());
+        Assertions.assertEquals(List.of(),
+                filmStorage.searchFilmsInStorage(FilmSearch.builder().name("cept").build()));
+    }
+
+    @Test
+    @DisplayName("Film search - films without a release date come last when sorted by date")
+    void undatedFilmsComeLast() {
+        for (FilmStorage filmStorage : List.of(new InMemoryFilmStorage(), new OffHeapFilmStorage())) {
+            Film undated = filmStorage.createEntityInStorage(film("Up", null));
+            Film older = filmStorage.createEntityInStorage(film("Us", LocalDate.of(2019, 3, 22)));
+            Film newer = filmStorage.createEntityInStorage(film("Uncut Gems", LocalDate.of(2019, 12, 13)));
+            FilmSearch.FilmSearchBuilder byDate = FilmSearch.builder().sort(FilmSearch.Sort.DATE);
+
+            Assertions.assertEquals(List.of(newer.getId(), older.getId(), undated.getId()),
+                    ids(filmStorage.searchFilmsInStorage(byDate.build())));
+            Assertions.assertEquals(List.of(newer.getId(), older.getId(), undated.getId()),
+                    ids(filmStorage.searchFilmsInStorage(byDate.name("u").build())));
+            Assertions.assertEquals(List.of(newer.getId(), older.getId()),
+                    ids(filmStorage.searchFilmsInStorage(byDate.limit(2).build())));
+            Assertions.assertEquals(List.of(newer.getId(), older.getId()), ids(filmStorage.searchFilmsInStorage(
+                    FilmSearch.builder().sort(FilmSearch.Sort.DATE).releasedTo(LocalDate.of(2020, 1, 1)).build())));
+
+            Film dated = film("Up", LocalDate.of(2009, 5, 29));
+            dated.setId(undated.getId());
+            filmStorage.updateEntityInStorage(dated);
+            Assertions.assertEquals(List.of(newer.getId(), older.getId(), undated.getId()),
+                    ids(filmStorage.searchFilmsInStorage(byDate.limit(100).build())));
+
+            Film undatedAgain = film("Up", null);
+            undatedAgain.setId(newer.getId());
+            filmStorage.updateEntityInStorage(undatedAgain);
+            Assertions.assertEquals(List.of(older.getId(), undated.getId(), newer.getId()),
+                    ids(filmStorage.searchFilmsInStorage(byDate.build())));
+
+            filmStorage.deleteEntityFromStorage(newer.getId());
+            Assertions.assertEquals(List.of(older.getId(), undated.getId()),
+                    ids(filmStorage.searchFilmsInStorage(byDate.build())));
+        }
+    }
+
+    private static List<Film> fullScan(FilmStorage filmStorage, FilmSearch search) {
+        Comparator<Film> order = search.getSort() == FilmSearch.Sort.LIKES
+                ? Comparator.comparingInt((Film film) -> film.getLikes().size()).reversed()
+                : Comparator.comparing(Film::getReleaseDate, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .reversed();
+        return filmStorage.readAllEntityFromStorage().stream()
+                .filter(search::matches)
+                .sorted(order.thenComparing(Film::getId))
+                .limit(search.getLimit())
+                .toList();
+    }
+
+    private static FilmSearch randomSearch(Random random) {
+        FilmSearch.FilmSearchBuilder search = FilmSearch.builder()
+                .sort(random.nextBoolean() ? FilmSearch.Sort.LIKES : FilmSearch.Sort.DATE)
+                .limit(1 + random.nextInt(50));
+        if (random.nextInt(3) == 0) {
+            String word = WORDS[random.nextInt(WORDS.length)].toLowerCase();
+            int from = random.nextInt(word.length() - 2);
+            search.name(word.substring(from, from + 3 + random.nextInt(word.length() - from - 2)));
+        }
+        if (random.nextInt(4) == 0) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            search.namePrefix(word.substring(0, 1 + random.nextInt(word.length())));
+        }
+        if (random.nextInt(3) == 0) {
+            LocalDate from = LocalDate.of(1950 + random.nextInt(70), 1 + random.nextInt(12), 1);
+            search.releasedFrom(from).releasedTo(from.plusDays(random.nextInt(5_000)));
+        }
+        if (random.nextInt(3) == 0) {
+            Duration min = Duration.ofMinutes(60 + random.nextInt(100));
+            search.minDuration(min);
+            if (random.nextBoolean()) {
+                search.maxDuration(min.plusMinutes(random.nextInt(60)));
+            }
+        }
+        return search.build();
+    }
+
+    private static Film randomFilm(Random random) {
+        String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+        Film film = film(name, random.nextInt(20) == 0 ? null
+                : LocalDate.of(1950 + random.nextInt(70), 1, 1).plusDays(random.nextInt(365)));
+        film.setDuration(Duration.ofMinutes(60 + random.nextInt(120)));
+        return film;
+    }
+
+    private static Film film(String name, LocalDate releaseDate) {
+        return Film.builder()
+                .name(name)
+                .description("Searched film")
+                .releaseDate(releaseDate)
+                .duration(Duration.ofMinutes(120))
+                .build();
+    }
+
+    private static List<Long> ids(List<Film> films) {
+        return films.stream().map(Film::getId).toList();
+    }
+}
@@ -0,0 +1,481 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
+import ru.yandex.practicum.filmorate.service.TrendingProperties;
+import ru.yandex.practicum.filmorate.service.TrendingService;
+import ru.yandex.practicum.filmorate.service.UserDeletionService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.utility.LongHashSet;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class InMemoryStorageConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 500;
+
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+    private FilmService filmService;
+    private UserService userService;
+    private UserDeletionService userDeletionService;
+
+    @BeforeEach
+    void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+        userService = new UserService(userStorage);
+        filmService = new FilmService(filmStorage, userService,
+                new TrendingService(filmStorage, new TrendingProperties()),
+                new RecommendationService(filmStorage, userService));
+        userDeletionService = new UserDeletionService(filmService, userService);
+    }
+
+    @Test
+    @DisplayName("Concurrent likes and film updates - no like is lost")
+    void concurrentLikesAreNotLost() throws Exception {
+        Film film = filmStorage.createEntityInStorage(film("Stress film"));
+        List<Long> userIds = createUsers(THREADS * OPERATIONS_PER_THREAD);
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                filmService.addLikeToFilm(film.getId(), userIds.get(thread * OPERATIONS_PER_THREAD + i));
+                if (i % 50 == 0) {
+                    Film toUpdate = film("Updated by thread " + thread);
+                    toUpdate.setId(film.getId());
+                    filmService.updateFilm(toUpdate);
+                }
+            }
+        });
+
+        Film stored = filmStorage.readEntityFromStorage(film.getId());
+        Assertions.assertEquals(THREADS * OPERATIONS_PER_THREAD, stored.getLikes().size());
+        Assertions.assertEquals(film.getId(), filmService.getTopRatedFilms(1).get(0).getId());
+    }
+
+    @Test
+    @DisplayName("Concurrent likes and unlikes - popularity index stays consistent")
+    void concurrentLikesKeepPopularityIndexConsistent() throws Exception {
+        Film first = filmStorage.createEntityInStorage(film("First film"));
+        Film second = filmStorage.createEntityInStorage(film("Second film"));
+        List<Long> userIds = createUsers(THREADS * OPERATIONS_PER_THREAD);
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                Long userId = userIds.get(thread * OPERATIONS_PER_THREAD + i);
+                filmService.addLikeToFilm(first.getId(), userId);
+                filmService.addLikeToFilm(second.getId(), userId);
+                if (i % 2 == 0) {
+                    filmService.removeLikeFromFilm(second.getId(), userId);
+                }
+            }
+        });
+
+        List<Film> top = filmService.getTopRatedFilms(2);
+        Assertions.assertEquals(2, top.size());
+        Assertions.assertEquals(first.getId(), top.get(0).getId());
+        Assertions.assertEquals(THREADS * OPERATIONS_PER_THREAD, top.get(0).getLikes().size());
+        Assertions.assertEquals(second.getId(), top.get(1).getId());
+        Assertions.assertEquals(THREADS * OPERATIONS_PER_THREAD / 2, top.get(1).getLikes().size());
+    }
+
+    @Test
+    @DisplayName("Concurrent likes and unlikes - liked films of a user match film likes")
+    void concurrentLikesKeepLikedFilmsConsistent() throws Exception {
+        Long userId = createUsers(1).get(0);
+        List<Long> filmIds = new ArrayList<>();
+        for (int i = 0; i < THREADS * 10; i++) {
+            filmIds.add(filmStorage.createEntityInStorage(film("Film " + i)).getId());
+        }
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                Long filmId = filmIds.get(thread * 10 + i % 10);
+                filmService.addLikeToFilm(filmId, userId);
+                if (i % 3 == 0) {
+                    filmService.removeLikeFromFilm(filmId, userId);
+                }
+            }
+        });
+
+        List<Long> expected = filmIds.stream()
+                .filter(filmId -> filmStorage.readEntityFromStorage(filmId).getLikes().contains(userId))
+                .toList();
+        Assertions.assertFalse(expected.isEmpty());
+        Assertions.assertEquals(expected, filmService.getLikedFilms(userId).stream().map(Film::getId).toList());
+
+        filmStorage.deleteEntityFromStorage(expected.get(0));
+        Assertions.assertEquals(expected.subList(1, expected.size()),
+                filmService.getLikedFilms(userId).stream().map(Film::getId).toList());
+
+        filmService.removeLikesOfUser(userId);
+        Assertions.assertTrue(filmService.getLikedFilms(userId).isEmpty());
+        Assertions.assertEquals(0, filmStorage.countLikesInStorage());
+        Assertions.assertEquals(0, filmService.getTopRatedFilms(1).get(0).getLikes().size());
+    }
+
+    @Test
+    @DisplayName("Concurrent friend additions - no friendship is lost")
+    void concurrentFriendAdditionsAreNotLost() throws Exception {
+        User hub = userStorage.createEntityInStorage(user("hub"));
+        List<Long> userIds = createUsers(THREADS * OPERATIONS_PER_THREAD);
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                userService.addFriend(userIds.get(thread * OPERATIONS_PER_THREAD + i), hub.getId());
+            }
+        });
+
+        Assertions.assertEquals(THREADS * OPERATIONS_PER_THREAD,
+                userStorage.readEntityFromStorage(hub.getId()).getFriends().size());
+        Assertions.assertEquals(THREADS * OPERATIONS_PER_THREAD, userService.getUserFriends(hub.getId()).size());
+    }
+
+    @Test
+    @DisplayName("Concurrent creations and updates - a login or email is taken once")
+    void concurrentLoginClaimsAreUnique() throws Exception {
+        List<Long> userIds = createUsers(THREADS);
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger updated = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            try {
+                userStorage.createEntityInStorage(User.builder()
+                        .login("contended")
+                        .email("creator" + thread + "@doe.com")
+                        .build());
+                created.incrementAndGet();
+            } catch (ConflictException ignored) {
+                // another thread has taken the login
+            }
+            try {
+                User user = user("user" + thread);
+                user.setId(userIds.get(thread));
+                user.setEmail("contended@doe.com");
+                userStorage.updateEntityInStorage(user);
+                updated.incrementAndGet();
+            } catch (ConflictException ignored) {
+                // another thread has taken the email
+            }
+        });
+
+        Assertions.assertEquals(1, created.get());
+        Assertions.assertEquals(1, updated.get());
+        User holder = userStorage.readUserByEmailFromStorage("contended@doe.com");
+        Assertions.assertTrue(userIds.contains(holder.getId()));
+        Assertions.assertEquals(holder, userStorage.readUserByLoginFromStorage(holder.getLogin()));
+        Assertions.assertEquals(THREADS + 1, userStorage.countEntitiesInStorage());
+    }
+
+    @Test
+    @DisplayName("Concurrent friend additions and deletions - no friend list points at a deleted user")
+    void concurrentDeletionsLeaveNoDanglingFriends() throws Exception {
+        List<Long> userIds = createUsers(THREADS * OPERATIONS_PER_THREAD);
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                long userId = userIds.get(thread * OPERATIONS_PER_THREAD + i);
+                long friendId = userIds.get((thread + 1) % THREADS * OPERATIONS_PER_THREAD + i);
+                try {
+                    userService.addFriend(userId, friendId);
+                } catch (NotFoundException ignored) {
+                    // the friend has been deleted by the neighbouring thread
+                }
+                if (i % 2 == 0) {
+                    userService.deleteUser(userId);
+                }
+            }
+        });
+
+        long friendships = 0;
+        for (User user : userStorage.readAllEntityFromStorage()) {
+            friendships += user.getFriends().size();
+            Assertions.assertEquals(user.getFriends().size(), userService.getUserFriends(user.getId()).size());
+        }
+        Assertions.assertEquals(THREADS * OPERATIONS_PER_THREAD / 2, userStorage.countEntitiesInStorage());
+        Assertions.assertEquals(friendships, userStorage.countFriendshipsInStorage());
+    }
+
+    @Test
+    @DisplayName("Concurrent likes and user deletions - no like outlives its user")
+    void concurrentLikesAndUserDeletionsLeaveNoOrphanLikes() throws Exception {
+        List<Long> userIds = createUsers(THREADS / 2 * OPERATIONS_PER_THREAD);
+        List<Long> filmIds = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            filmIds.add(filmStorage.createEntityInStorage(film("Liked film " + i)).getId());
+        }
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                long userId = userIds.get(thread / 2 * OPERATIONS_PER_THREAD + i);
+                try {
+                    if (thread % 2 == 0) {
+                        for (Long filmId : filmIds) {
+                            filmService.addLikeToFilm(filmId, userId);
+                        }
+                    } else {
+                        userDeletionService.deleteUser(userId);
+                    }
+                } catch (NotFoundException ignored) {
+                    // the user has been deleted by the neighbouring thread
+                }
+            }
+        });
+
+        Assertions.assertEquals(0, userStorage.countEntitiesInStorage());
+        Assertions.assertEquals(0, filmStorage.countLikesInStorage());
+        for (Long filmId : filmIds) {
+            Assertions.assertTrue(filmStorage.readEntityFromStorage(filmId).getLikes().isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("Concurrent friend additions and removals - both sides of a friendship agree")
+    void concurrentFriendAdditionsAndRemovalsStaySymmetric() throws Exception {
+        List<Long> userIds = createUsers(THREADS);
+        CyclicBarrier round = new CyclicBarrier(THREADS);
+
+        runConcurrently(thread -> {
+            // threads 2k and 2k + 1 add and remove the friendship of users 2k and 2k + 1 at the same time
+            long userId = userIds.get(thread & ~1);
+            long friendId = userIds.get(thread | 1);
+            for (int i = 0; i < OPERATIONS_PER_THREAD * 4; i++) {
+                round.await();
+                if (thread % 2 == 0) {
+                    userService.addFriend(userId, friendId);
+                } else {
+                    userService.removeFriend(friendId, userId);
+                }
+                round.await();
+                Assertions.assertEquals(userStorage.readEntityFromStorage(userId).getFriends().contains(friendId),
+                        userStorage.readEntityFromStorage(friendId).getFriends().contains(userId));
+            }
+        });
+
+        assertFriendshipsSymmetric();
+    }
+
+    @Test
+    @DisplayName("Friend removal racing an addition - both sides are removed once both are added")
+    void friendRemovalWaitsForBothSidesOfAddition() throws Exception {
+        GatedFriends gated = new GatedFriends(1L);
+        User first = user(1L, "first", new LongHashSet());
+        User second = user(2L, "second", gated);
+        userStorage.restoreEntityInStorage(first);
+        userStorage.restoreEntityInStorage(second);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> addition = executor.submit(() -> userService.addFriend(first.getId(), second.getId()));
+            Assertions.assertTrue(gated.entered.await(10, TimeUnit.SECONDS));
+            Future<?> removal = executor.submit(() -> userService.removeFriend(first.getId(), second.getId()));
+            try {
+                removal.get(200, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException expected) {
+                // held back until the addition has added both sides
+            }
+            gated.released.countDown();
+            addition.get();
+            removal.get();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertFriendshipsSymmetric();
+        Assertions.assertEquals(0, userStorage.countFriendshipsInStorage());
+    }
+
+    @Test
+    @DisplayName("Deletion after concurrent friend changes - no friend list points at the deleted user")
+    void deletionAfterConcurrentFriendChangesLeavesNoDanglingFriend() throws Exception {
+        List<Long> userIds = createUsers(THREADS);
+        CyclicBarrier round = new CyclicBarrier(THREADS);
+
+        runConcurrently(thread -> {
+            long userId = userIds.get(0);
+            long friendId = userIds.get(1 + thread % (THREADS - 1));
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                round.await();
+                if ((thread + i) % 2 == 0) {
+                    userService.addFriend(userId, friendId);
+                } else {
+                    userService.removeFriend(friendId, userId);
+                }
+            }
+        });
+        userDeletionService.deleteUser(userIds.get(0));
+
+        for (Long userId : userIds.subList(1, userIds.size())) {
+            Assertions.assertFalse(userStorage.readEntityFromStorage(userId).getFriends().contains(userIds.get(0)));
+            Assertions.assertTrue(userService.getUserFriends(userId).isEmpty());
+        }
+        assertFriendshipsSymmetric();
+    }
+
+    @Test
+    @DisplayName("Friend list with a deleted friend - the deleted friend is skipped")
+    void friendListSkipsDeletedFriend() {
+        User friend = userStorage.createEntityInStorage(user("friend"));
+        LongHashSet friends = new LongHashSet();
+        friends.add(friend.getId());
+        friends.add(Long.MAX_VALUE);
+        userStorage.restoreEntityInStorage(user(Long.MAX_VALUE - 1, "dangling", friends));
+
+        Assertions.assertEquals(List.of(friend),
+                userService.getUserFriends(Long.MAX_VALUE - 1));
+        Assertions.assertEquals(List.of(friend),
+                userService.getCommonFriends(Long.MAX_VALUE - 1, Long.MAX_VALUE - 1));
+    }
+
+    @Test
+    @DisplayName("Concurrent like imports and user deletions - no imported like outlives its user")
+    void concurrentLikeImportsAndUserDeletionsLeaveNoOrphanLikes() throws Exception {
+        List<Long> userIds = createUsers(THREADS / 2 * OPERATIONS_PER_THREAD);
+        long[] filmIds = new long[10];
+        for (int i = 0; i < filmIds.length; i++) {
+            filmIds[i] = filmStorage.createEntityInStorage(film("Imported film " + i)).getId();
+        }
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                long userId = userIds.get(thread / 2 * OPERATIONS_PER_THREAD + i);
+                if (thread % 2 == 0) {
+                    long[] likers = new long[filmIds.length];
+                    Arrays.fill(likers, userId);
+                    filmService.importLikes(filmIds, likers);
+                } else {
+                    userDeletionService.deleteUser(userId);
+                }
+            }
+        });
+
+        Assertions.assertEquals(0, userStorage.countEntitiesInStorage());
+        Assertions.assertEquals(0, filmStorage.countLikesInStorage());
+        for (long userId : userIds) {
+            Assertions.assertTrue(filmStorage.readLikedFilmsFromStorage(userId).isEmpty());
+        }
+    }
+
+    private void assertFriendshipsSymmetric() {
+        long friendships = 0;
+        for (User user : userStorage.readAllEntityFromStorage()) {
+            for (Long friendId : user.getFriends()) {
+                Assertions.assertTrue(userStorage.readEntityFromStorage(friendId).getFriends().contains(user.getId()),
+                        () -> friendId + " does not list " + user.getId() + " back");
+            }
+            friendships += user.getFriends().size();
+        }
+        Assertions.assertEquals(friendships, userStorage.countFriendshipsInStorage());
+    }
+
+    private void runConcurrently(ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Void>> futures = new ArrayList<>();
+        try {
+            for (int thread = 0; thread < THREADS; thread++) {
+                int threadNumber = thread;
+                Callable<Void> callable = () -> {
+                    start.await();
+                    task.run(threadNumber);
+                    return null;
+                };
+                futures.add(executor.submit(callable));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<Long> createUsers(int count) {
+        List<Long> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(userStorage.createEntityInStorage(user("user" + i)).getId());
+        }
+        return ids;
+    }
+
+    private static Film film(String name) {
+        return Film.builder()
+                .name(name)
+                .description("Stress test film")
+                .releaseDate(LocalDate.of(1990, 9, 27))
+                .duration(Duration.ofMinutes(120))
+                .build();
+    }
+
+    private static User user(long id, String login, LongHashSet friends) {
+        return User.builder()
+                .id(id)
+                .name(login)
+                .email(login + "@doe.com")
+                .login(login)
+                .birthday(LocalDate.of(1990, 1, 1))
+                .friends(friends)
+                .build();
+    }
+
+    private static User user(String login) {
+        return User.builder()
+                .name("")
+                .email(login + "@doe.com")
+                .birthday(LocalDate.of(1990, 9, 27))
+                .login(login)
+                .build();
+    }
+
+    /**
+     * Friend set that stops the first addition of {@code gatedId} until released.
+     */
+    private static final class GatedFriends extends LongHashSet {
+        private final long gatedId;
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+
+        private GatedFriends(long gatedId) {
+            this.gatedId = gatedId;
+        }
+
+        @Override
+        public boolean add(long value) {
+            if (value == gatedId && entered.getCount() > 0) {
+                entered.countDown();
+                try {
+                    released.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.add(value);
+        }
+    }
+
+    private interface ThreadTask {
+        void run(int thread) throws Exception;
+    }
+}
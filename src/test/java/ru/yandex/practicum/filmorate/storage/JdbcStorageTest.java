@@ -0,0 +1,246 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSearch;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@SpringBootTest
+@ActiveProfiles("jdbc")
+class JdbcStorageTest {
+    @Autowired
+    private FilmStorage filmStorage;
+
+    @Autowired
+    private UserStorage userStorage;
+
+    @Autowired
+    private JdbcFilmStorage jdbcFilmStorage;
+
+    @Autowired
+    private JdbcUserStorage jdbcUserStorage;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbc;
+
+    @Test
+    @DisplayName("Jdbc profile - relational storages are used behind caches")
+    void jdbcStoragesSelected() {
+        Assertions.assertInstanceOf(CachingFilmStorage.class, unwrap(filmStorage));
+        Assertions.assertInstanceOf(CachingUserStorage.class, unwrap(userStorage));
+        Assertions.assertInstanceOf(JdbcFilmStorage.class, unwrap(jdbcFilmStorage));
+        Assertions.assertInstanceOf(JdbcUserStorage.class, unwrap(jdbcUserStorage));
+    }
+
+    @Test
+    @DisplayName("Film create, update, likes and popular films")
+    void filmLifecycle() {
+        User first = userStorage.createEntityInStorage(user("jdbcFirst"));
+        User second = userStorage.createEntityInStorage(user("jdbcSecond"));
+        Film liked = filmStorage.createEntityInStorage(film("Liked"));
+        Film other = filmStorage.createEntityInStorage(film("Other"));
+
+        filmStorage.addLikeInStorage(liked.getId(), first.getId());
+        filmStorage.addLikeInStorage(liked.getId(), first.getId());
+        filmStorage.addLikeInStorage(liked.getId(), second.getId());
+        filmStorage.addLikeInStorage(other.getId(), first.getId());
+        filmStorage.removeLikeFromStorage(other.getId(), first.getId());
+
+        Film renamed = film("Renamed");
+        renamed.setId(liked.getId());
+        Film updated = filmStorage.updateEntityInStorage(renamed);
+
+        Assertions.assertEquals("Renamed", updated.getName());
+        Assertions.assertEquals(Duration.ofMinutes(120), updated.getDuration());
+        Assertions.assertEquals(Set.of(first.getId(), second.getId()), updated.getLikes());
+        Assertions.assertEquals(liked.getId(), filmStorage.readTopRatedFilmsFromStorage(1).get(0).getId());
+        Assertions.assertEquals(List.of(other.getId(), liked.getId()),
+                filmStorage.readEntitiesFromStorage(List.of(other.getId(), liked.getId())).stream()
+                        .map(Film::getId)
+                        .toList());
+        Assertions.assertEquals(List.of(other.getId()),
+                filmStorage.readEntitiesPageFromStorage(liked.getId(), 1).stream().map(Film::getId).toList());
+
+        filmStorage.deleteEntityFromStorage(other.getId());
+        Assertions.assertThrows(NotFoundException.class, () -> filmStorage.readEntityFromStorage(other.getId()));
+        Assertions.assertEquals("Entity not found with id: " + other.getId(), Assertions.assertThrows(
+                NotFoundException.class, () -> filmStorage.addLikeInStorage(other.getId(), first.getId())).getMessage());
+        Assertions.assertEquals("Entity not found with id: " + Long.MAX_VALUE, Assertions.assertThrows(
+                NotFoundException.class, () -> filmStorage.addLikeInStorage(liked.getId(), Long.MAX_VALUE)).getMessage());
+    }
+
+    @Test
+    @DisplayName("Logins and emails are unique and looked up by index")
+    void uniqueLoginAndEmail() {
+        User holder = userStorage.createEntityInStorage(user("jdbcHolder"));
+        User other = userStorage.createEntityInStorage(user("jdbcOther"));
+
+        ConflictException taken = Assertions.assertThrows(ConflictException.class,
+                () -> userStorage.createEntityInStorage(user("jdbcHolder")));
+        Assertions.assertEquals("Login jdbcHolder is already taken", taken.getMessage());
+        other.setEmail(holder.getEmail());
+        taken = Assertions.assertThrows(ConflictException.class, () -> userStorage.updateEntityInStorage(other));
+        Assertions.assertEquals("Email jdbcHolder@doe.com is already taken", taken.getMessage());
+        Assertions.assertThrows(ConflictException.class,
+                () -> userStorage.createEntitiesInStorage(List.of(user("jdbcBatch"), user("jdbcBatch"))));
+        Assertions.assertThrows(NotFoundException.class, () -> userStorage.readUserByLoginFromStorage("jdbcBatch"));
+
+        Assertions.assertEquals(holder.getId(), userStorage.readUserByLoginFromStorage("jdbcHolder").getId());
+        Assertions.assertEquals(other.getId(), userStorage.readUserByEmailFromStorage("jdbcOther@doe.com").getId());
+        userStorage.deleteEntityFromStorage(holder.getId());
+        Assertions.assertEquals("jdbcHolder", userStorage.createEntityInStorage(user("jdbcHolder")).getLogin());
+    }
+
+    @Test
+    @DisplayName("Deleting a user drops its friendships and likes, also from the caches")
+    void userDeletionCascades() {
+        User deleted = userStorage.createEntityInStorage(user("jdbcDeleted"));
+        User friend = userStorage.createEntityInStorage(user("jdbcDeletedFriend"));
+        Film film = filmStorage.createEntityInStorage(film("Liked by a deleted user"));
+        userStorage.addFriendInStorage(deleted.getId(), friend.getId());
+        filmStorage.addLikeInStorage(film.getId(), deleted.getId());
+        Assertions.assertEquals(Set.of(deleted.getId()), userStorage.readEntityFromStorage(friend.getId()).getFriends());
+        Assertions.assertEquals(Set.of(deleted.getId()), filmStorage.readEntityFromStorage(film.getId()).getLikes());
+
+        filmStorage.removeUserLikesFromStorage(deleted.getId());
+        userStorage.deleteEntityFromStorage(deleted.getId());
+
+        Assertions.assertEquals(Set.of(), userStorage.readEntityFromStorage(friend.getId()).getFriends());
+        Assertions.assertEquals(Set.of(), filmStorage.readEntityFromStorage(film.getId()).getLikes());
+        Assertions.assertThrows(NotFoundException.class, () -> userStorage.readEntityFromStorage(deleted.getId()));
+    }
+
+    @Test
+    @DisplayName("Film search filters in SQL and orders by likes or release date")
+    void filmSearch() {
+        User liker = userStorage.createEntityInStorage(user("jdbcSearcher"));
+        Film percent = film("Searched 100% Jdbc");
+        percent.setReleaseDate(LocalDate.of(1960, 1, 1));
+        Film liked = filmStorage.createEntityInStorage(film("Searched 100 Jdbc"));
+        percent = filmStorage.createEntityInStorage(percent);
+        filmStorage.addLikeInStorage(liked.getId(), liker.getId());
+
+        Assertions.assertEquals(List.of(percent.getId()), ids(filmStorage.searchFilmsInStorage(
+                FilmSearch.builder().name("100%").build())));
+        Assertions.assertEquals(List.of(liked.getId(), percent.getId()), ids(filmStorage.searchFilmsInStorage(
+                FilmSearch.builder().namePrefix("SEARCHED").build())));
+        Assertions.assertEquals(List.of(liked.getId(), percent.getId()), ids(filmStorage.searchFilmsInStorage(
+                FilmSearch.builder().name("jdbc").releasedFrom(LocalDate.of(1950, 1, 1))
+                        .maxDuration(Duration.ofHours(2)).sort(FilmSearch.Sort.DATE).build())));
+        Assertions.assertEquals(List.of(percent.getId()), ids(filmStorage.searchFilmsInStorage(
+                FilmSearch.builder().namePrefix("searched").releasedTo(LocalDate.of(1970, 1, 1)).build())));
+        Assertions.assertEquals(List.of(), filmStorage.searchFilmsInStorage(
+                FilmSearch.builder().namePrefix("searched").minDuration(Duration.ofHours(3)).build()));
+    }
+
+    @Test
+    @DisplayName("Friendship is stored in both directions")
+    void friendships() {
+        User first = userStorage.createEntityInStorage(user("friendFirst"));
+        User second = userStorage.createEntityInStorage(user("friendSecond"));
+        long edges = userStorage.countFriendshipsInStorage();
+
+        userStorage.addFriendInStorage(first.getId(), second.getId());
+        userStorage.addFriendInStorage(second.getId(), first.getId());
+
+        Assertions.assertEquals(edges + 2, userStorage.countFriendshipsInStorage());
+        Assertions.assertEquals(Set.of(second.getId()), userStorage.readEntityFromStorage(first.getId()).getFriends());
+        Assertions.assertEquals(Set.of(first.getId()), userStorage.readEntityFromStorage(second.getId()).getFriends());
+        Assertions.assertThrows(NotFoundException.class,
+                () -> userStorage.addFriendInStorage(first.getId(), Long.MAX_VALUE));
+
+        userStorage.removeFriendFromStorage(first.getId(), second.getId());
+        Assertions.assertTrue(userStorage.readEntityFromStorage(first.getId()).getFriends().isEmpty());
+        Assertions.assertEquals(edges, userStorage.countFriendshipsInStorage());
+    }
+
+    @Test
+    @DisplayName("Batch inserts return generated ids and skip missing references")
+    void batchInserts() {
+        List<User> users = userStorage.createEntitiesInStorage(List.of(user("batchFirst"), user("batchSecond")));
+        List<Film> films = filmStorage.createEntitiesInStorage(List.of(film("Batch first"), film("Batch second")));
+        long firstUser = users.get(0).getId();
+        long secondUser = users.get(1).getId();
+
+        filmStorage.addLikesInStorage(new long[]{films.get(0).getId(), films.get(0).getId(), Long.MAX_VALUE},
+                new long[]{firstUser, secondUser, firstUser});
+        userStorage.addFriendsInStorage(new long[]{firstUser, firstUser}, new long[]{secondUser, Long.MAX_VALUE});
+
+        Assertions.assertEquals("batchSecond", userStorage.readEntityFromStorage(secondUser).getLogin());
+        Assertions.assertEquals("Batch second", filmStorage.readEntityFromStorage(films.get(1).getId()).getName());
+        Assertions.assertEquals(Set.of(firstUser, secondUser),
+                filmStorage.readEntityFromStorage(films.get(0).getId()).getLikes());
+        Assertions.assertEquals(Set.of(secondUser), userStorage.readEntityFromStorage(firstUser).getFriends());
+        Assertions.assertEquals(List.of(films.get(0).getId()),
+                filmStorage.readLikedFilmsFromStorage(firstUser).stream().map(Film::getId).toList());
+
+        filmStorage.removeUserLikesFromStorage(firstUser);
+        Assertions.assertTrue(filmStorage.readLikedFilmsFromStorage(firstUser).isEmpty());
+        Assertions.assertEquals(Set.of(secondUser), filmStorage.readEntityFromStorage(films.get(0).getId()).getLikes());
+    }
+
+    @Test
+    @DisplayName("Likes count column follows likes, unlikes, batches and removed users")
+    void likesCountFollowsLikes() {
+        List<User> users = userStorage.createEntitiesInStorage(
+                List.of(user("countFirst"), user("countSecond"), user("countThird")));
+        List<Film> films = filmStorage.createEntitiesInStorage(List.of(film("Counted first"), film("Counted second")));
+        long first = films.get(0).getId();
+        long second = films.get(1).getId();
+
+        filmStorage.addLikesInStorage(new long[]{first, first, first, second},
+                new long[]{users.get(0).getId(), users.get(1).getId(), users.get(1).getId(), users.get(0).getId()});
+        filmStorage.addLikeInStorage(second, users.get(1).getId());
+        filmStorage.addLikeInStorage(second, users.get(2).getId());
+        filmStorage.addLikeInStorage(second, users.get(2).getId());
+        filmStorage.removeLikeFromStorage(first, users.get(2).getId());
+        filmStorage.removeLikeFromStorage(second, users.get(2).getId());
+        filmStorage.removeUserLikesFromStorage(users.get(0).getId());
+
+        Assertions.assertEquals(List.of(1L, 1L), jdbc.queryForList("SELECT likes_count FROM films "
+                + "WHERE id IN (:ids) ORDER BY id", Map.of("ids", List.of(first, second)), Long.class));
+        Assertions.assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM films f WHERE f.likes_count <> "
+                + "(SELECT COUNT(*) FROM film_likes l WHERE l.film_id = f.id)", Map.of(), Long.class));
+    }
+
+    private static Object unwrap(Object bean) {
+        return AopTestUtils.getUltimateTargetObject(bean);
+    }
+
+    private static Film film(String name) {
+        return Film.builder()
+                .name(name)
+                .description("Jdbc film")
+                .releaseDate(LocalDate.of(1990, 9, 27))
+                .duration(Duration.ofMinutes(120))
+                .build();
+    }
+
+    private static User user(String login) {
+        return User.builder()
+                .name("")
+                .email(login + "@doe.com")
+                .birthday(LocalDate.of(1990, 9, 27))
+                .login(login)
+                .build();
+    }
+
+    private static List<Long> ids(List<Film> films) {
+        return films.stream().map(Film::getId).toList();
+    }
+}
@@ -0,0 +1,157 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+@SpringBootTest
+@ActiveProfiles("offheap")
+class OffHeapFilmStorageTest {
+    @Autowired
+    private FilmStorage filmStorage;
+
+    @Autowired
+    private UserStorage userStorage;
+
+    @Autowired
+    private FilmService filmService;
+
+    @Test
+    @DisplayName("Offheap profile - films are kept in the columnar storage")
+    void offHeapStorageSelected() {
+        Assertions.assertInstanceOf(OffHeapFilmStorage.class, AopTestUtils.getUltimateTargetObject(filmStorage));
+    }
+
+    @Test
+    @DisplayName("Film create, read, update and delete round trip through the columns")
+    void filmLifecycle() {
+        Film created = filmStorage.createEntityInStorage(film("Фильм ☕"));
+        Film blank = filmStorage.createEntityInStorage(Film.builder().name("No details").build());
+
+        Film read = filmStorage.readEntityFromStorage(created.getId());
+        Assertions.assertEquals(created, read);
+        Assertions.assertEquals("Фильм ☕", read.getName());
+        Film readBlank = filmStorage.readEntityFromStorage(blank.getId());
+        Assertions.assertNull(readBlank.getDescription());
+        Assertions.assertNull(readBlank.getReleaseDate());
+        Assertions.assertNull(readBlank.getDuration());
+
+        Film renamed = film("Renamed");
+        renamed.setId(created.getId());
+        renamed.setDuration(Duration.ofSeconds(5_401));
+        Film updated = filmStorage.updateEntityInStorage(renamed);
+        Assertions.assertEquals("Renamed", updated.getName());
+        Assertions.assertEquals(Duration.ofSeconds(5_401), updated.getDuration());
+        Assertions.assertEquals(List.of(created.getId(), blank.getId()),
+                filmStorage.readEntitiesPageFromStorage(created.getId() - 1, 2).stream().map(Film::getId).toList());
+
+        long count = filmStorage.countEntitiesInStorage();
+        filmStorage.deleteEntityFromStorage(created.getId());
+        Assertions.assertEquals(count - 1, filmStorage.countEntitiesInStorage());
+        Assertions.assertThrows(NotFoundException.class, () -> filmStorage.readEntityFromStorage(created.getId()));
+        Assertions.assertThrows(NotFoundException.class, () -> filmStorage.updateEntityInStorage(renamed));
+        Assertions.assertThrows(NotFoundException.class, () -> filmStorage.readEntityFromStorage(Long.MAX_VALUE));
+        Assertions.assertEquals(Set.of(blank.getId()),
+                filmStorage.readExistingIdsFromStorage(List.of(created.getId(), blank.getId())));
+    }
+
+    @Test
+    @DisplayName("Likes keep the like count column, popular films and liked films in step")
+    void likes() {
+        User first = userStorage.createEntityInStorage(user("offHeapFirst"));
+        User second = userStorage.createEntityInStorage(user("offHeapSecond"));
+        Film liked = filmStorage.createEntityInStorage(film("Liked"));
+        Film other = filmStorage.createEntityInStorage(film("Other"));
+        long likes = filmStorage.countLikesInStorage();
+
+        filmService.addLikeToFilm(other.getId(), first.getId());
+        filmStorage.addLikesInStorage(new long[]{liked.getId(), liked.getId(), Long.MAX_VALUE},
+                new long[]{first.getId(), second.getId(), first.getId()});
+
+        Assertions.assertEquals(likes + 3, filmStorage.countLikesInStorage());
+        Assertions.assertEquals(List.of(liked.getId(), other.getId()),
+                filmService.getTopRatedFilms(2).stream().map(Film::getId).toList());
+        Assertions.assertEquals(List.of(liked.getId(), other.getId()),
+                filmService.getLikedFilms(first.getId()).stream().map(Film::getId).toList());
+
+        filmService.removeLikesOfUser(first.getId());
+        Assertions.assertEquals(Set.of(second.getId()), filmStorage.readEntityFromStorage(liked.getId()).getLikes());
+        Assertions.assertTrue(filmStorage.readEntityFromStorage(other.getId()).getLikes().isEmpty());
+        Assertions.assertEquals(likes + 1, filmStorage.countLikesInStorage());
+
+        filmStorage.deleteEntityFromStorage(liked.getId());
+        Assertions.assertTrue(filmService.getLikedFilms(second.getId()).isEmpty());
+        Assertions.assertEquals(likes, filmStorage.countLikesInStorage());
+        Assertions.assertThrows(NotFoundException.class,
+                () -> filmStorage.addLikeInStorage(liked.getId(), second.getId()));
+    }
+
+    @Test
+    @DisplayName("Popular films fill up with unliked films in id order, across chunks")
+    void popularFilmsFillUpWithUnlikedFilms() {
+        OffHeapFilmStorage offHeap = new OffHeapFilmStorage();
+        InMemoryFilmStorage inMemory = new InMemoryFilmStorage();
+        Random random = new Random(42);
+        for (int i = 0; i < 70_000; i++) {
+            offHeap.createEntityInStorage(film("Film " + i));
+            inMemory.createEntityInStorage(film("Film " + i));
+        }
+        for (int i = 0; i < 5_000; i++) {
+            long filmId = 1 + random.nextInt(i < 4_000 ? 66_000 : 200);
+            long userId = 1 + random.nextInt(3);
+            boolean unlike = random.nextInt(4) == 0;
+            for (FilmStorage storage : List.of(offHeap, inMemory)) {
+                if (unlike) {
+                    storage.removeLikeFromStorage(filmId, userId);
+                } else {
+                    storage.addLikeInStorage(filmId, userId);
+                }
+            }
+        }
+        for (long filmId = 1; filmId < 70_000; filmId += 97) {
+            offHeap.deleteEntityFromStorage(filmId);
+            inMemory.deleteEntityFromStorage(filmId);
+        }
+
+        for (int count : List.of(1, 100, 4_000, 10_000)) {
+            Assertions.assertEquals(ids(inMemory.readTopRatedFilmsFromStorage(count)),
+                    ids(offHeap.readTopRatedFilmsFromStorage(count)));
+        }
+    }
+
+    private static List<Long> ids(List<Film> films) {
+        return films.stream().map(Film::getId).toList();
+    }
+
+    private static Film film(String name) {
+        return Film.builder()
+                .name(name)
+                .description("Off-heap film")
+                .releaseDate(LocalDate.of(1990, 9, 27))
+                .duration(Duration.ofMinutes(120))
+                .build();
+    }
+
+    private static User user(String login) {
+        return User.builder()
+                .name("")
+                .email(login + "@doe.com")
+                .birthday(LocalDate.of(1990, 9, 27))
+                .login(login)
+                .build();
+    }
+}
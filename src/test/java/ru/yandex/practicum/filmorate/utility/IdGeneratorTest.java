@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.utility;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+class IdGeneratorTest {
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 10_000;
+
+    @Test
+    @DisplayName("Sequential generator - dense ids starting from one")
+    void sequentialIdsAreDense() throws Exception {
+        Set<Long> ids = generateConcurrently(new SequentialIdGenerator());
+
+        Assertions.assertEquals(THREADS * IDS_PER_THREAD, ids.size());
+        for (long id = 1; id <= THREADS * IDS_PER_THREAD; id++) {
+            Assertions.assertTrue(ids.contains(id));
+        }
+    }
+
+    @Test
+    @DisplayName("Sequential generator - skipping past a restored id never goes back")
+    void skipPastNeverGoesBack() {
+        IdGenerator generator = new SequentialIdGenerator();
+        generator.skipPast(41);
+        generator.skipPast(7);
+
+        Assertions.assertEquals(42, generator.nextId());
+    }
+
+    private Set<Long> generateConcurrently(IdGenerator generator) throws Exception {
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int thread = 0; thread < THREADS; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        ids.add(generator.nextId());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return ids;
+    }
+}
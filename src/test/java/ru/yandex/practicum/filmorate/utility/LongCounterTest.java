@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.utility;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+class LongCounterTest {
+    @Test
+    @DisplayName("Long counter - counts and top keys match a HashMap")
+    void matchesHashMap() {
+        LongCounter counter = new LongCounter();
+        Map<Long, Integer> reference = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            long key = 1 + random.nextInt(5_000);
+            int amount = 1 + random.nextInt(3);
+            counter.add(key, amount);
+            reference.merge(key, amount, Integer::sum);
+        }
+
+        Assertions.assertEquals(reference.size(), counter.size());
+        reference.forEach((key, count) -> Assertions.assertEquals(count, counter.get(key)));
+        long[] expected = reference.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.naturalOrder())))
+                .limit(50)
+                .mapToLong(Map.Entry::getKey)
+                .toArray();
+        Assertions.assertArrayEquals(expected, counter.top(50));
+        Assertions.assertEquals(reference.size(), counter.top(10_000).length);
+        Assertions.assertEquals(0, new LongCounter().top(10).length);
+    }
+}
@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.utility;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+class LongHashSetTest {
+    @Test
+    @DisplayName("Long set - behaves like HashSet under random add and remove")
+    void behavesLikeHashSet() {
+        LongHashSet set = new LongHashSet();
+        Set<Long> reference = new HashSet<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextInt(5_000);
+            if (random.nextBoolean()) {
+                Assertions.assertEquals(reference.add(value), set.add(value));
+            } else {
+                Assertions.assertEquals(reference.remove(value), set.remove(value));
+            }
+        }
+
+        Assertions.assertEquals(reference.size(), set.size());
+        Assertions.assertEquals(reference, set);
+        for (long value = 0; value < 5_000; value++) {
+            Assertions.assertEquals(reference.contains(value), set.contains(value));
+        }
+    }
+
+    @Test
+    @DisplayName("Long set - iterator removal and boxed lookups")
+    void iteratorRemovalAndBoxedLookups() {
+        LongHashSet set = new LongHashSet(List.of(1L, 2L, 3L));
+
+        set.removeIf(value -> value == 2L);
+
+        Assertions.assertEquals(Set.of(1L, 3L), set);
+        Assertions.assertFalse(set.contains("1"));
+        Assertions.assertFalse(set.remove((Object) 2L));
+    }
+
+    @Test
+    @DisplayName("Long set - JSON representation is a plain array")
+    void jsonCompatibility() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.findAndRegisterModules();
+        Film film = Film.builder()
+                .id(1L)
+                .name("Test film")
+                .description("Test film description")
+                .releaseDate(LocalDate.of(1990, 9, 27))
+                .duration(Duration.ofMinutes(120))
+                .likes(new LongHashSet(List.of(7L)))
+                .build();
+
+        String json = mapper.writeValueAsString(film);
+        Film parsed = mapper.readValue(json, Film.class);
+
+        Assertions.assertTrue(json.contains("\"likes\":[7]"));
+        Assertions.assertEquals(Set.of(7L), parsed.getLikes());
+    }
+
+    @Test
+    @DisplayName("Long set - intersection walks the smaller side")
+    void intersection() {
+        LongHashSet small = new LongHashSet(List.of(0L, 3L, 5L, 7L));
+        LongHashSet large = new LongHashSet();
+        for (long value = 0; value < 1_000; value += 5) {
+            large.add(value);
+        }
+
+        Assertions.assertEquals(Set.of(0L, 5L), new HashSet<>(LongHashSet.intersect(small, large)));
+        Assertions.assertEquals(Set.of(0L, 5L), new HashSet<>(LongHashSet.intersect(large, small)));
+        Assertions.assertEquals(List.of(5L), LongHashSet.intersect(Set.of(5L, 6L), large));
+        Assertions.assertTrue(LongHashSet.intersect(new LongHashSet(), large).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Long set - bounded copy takes distinct members up to the limit")
+    void boundedCopy() {
+        LongHashSet set = new LongHashSet(List.of(0L, 3L, 5L, 7L));
+
+        long[] bounded = set.toLongArray(3);
+        Assertions.assertEquals(3, bounded.length);
+        Assertions.assertEquals(3, Arrays.stream(bounded).distinct().filter(set::contains).count());
+        Assertions.assertEquals(4, set.toLongArray(10).length);
+        Assertions.assertEquals(0, set.toLongArray(0).length);
+    }
+}